@@ -1,18 +1,20 @@
 package base.gameObjects;
 
-import base.main.GamePanel;
+import base.main.World;
+import base.rendering.Drawable;
+import base.rendering.FrameSnapshot;
 
-import javax.swing.*;
 import java.awt.*;
 
-public abstract class AbstractGameObject {
+public abstract class AbstractGameObject implements Drawable {
     private boolean pressable, leftPressed, rightPressed;
-    private final GamePanel gamePanel;
-    public int x, y, z;
+    private final World world;
+    public int x, y;
+    public final int z;   // Fixed, as the render queue only sorts drawables when they are added
 
-    public AbstractGameObject(int z, GamePanel gamePanel) {
+    public AbstractGameObject(int z, World world) {
         this.z = z;
-        this.gamePanel = gamePanel;
+        this.world = world;
         pressable = false;
         leftPressed = false;
         rightPressed = false;
@@ -20,7 +22,8 @@ public abstract class AbstractGameObject {
 
     public abstract void update(double deltaTime);
 
-    public abstract void draw(Graphics2D g2D);
+    @Override
+    public abstract void snapshot(FrameSnapshot frame);
 
     public abstract boolean containsPoint(int x, int y);
 
@@ -31,6 +34,9 @@ public abstract class AbstractGameObject {
     public boolean isLeftPressed() { return leftPressed; }
 
     public void setLeftPressed(boolean pressed) {
+        if (pressed && !leftPressed) {
+            world.onLeftPressed(this);
+        }
         this.leftPressed = pressed;
         // Prevent both buttons from being pressed at the same time
         if (this.rightPressed && this.leftPressed) {
@@ -49,8 +55,6 @@ public abstract class AbstractGameObject {
     }
 
     public Point getMousePosition() {
-        Point mousePosition = MouseInfo.getPointerInfo().getLocation();
-        SwingUtilities.convertPointFromScreen(mousePosition, gamePanel); // Coordinates relative to gamePanel
-        return mousePosition;
+        return world.getMousePosition();
     }
 }
@@ -1,21 +1,22 @@
 package base.gameObjects;
 
 import base.gameObjects.station.Station;
-import base.gameObjects.station.StationExclusionCircle;
-import base.main.GamePanel;
+import base.main.World;
+import base.rendering.FrameSnapshot;
+import base.rendering.FrameSnapshot.DrawCommand;
 
-import java.awt.*;
 import java.util.ArrayList;
 
 public class Grid extends AbstractGameObject {
     public static final int GRID_SIZE = 50;
 
-    private final GamePanel gamePanel;
+    private final World world;
     private final ArrayList<Station> stationsToRemove;
+    private int pressedX, pressedY;   // Where the grid was pressed, as the mouse may have moved until the next update
 
-    public Grid(GamePanel gamePanel) {
-        super(GamePanel.GRID_Z_INDEX, gamePanel);
-        this.gamePanel = gamePanel;
+    public Grid(World world) {
+        super(World.GRID_Z_INDEX, world);
+        this.world = world;
         this.stationsToRemove = new ArrayList<>();
         this.setPressable(true);
     }
@@ -23,36 +24,37 @@ public class Grid extends AbstractGameObject {
     @Override
     public void update(double deltaTime) {
         // Allow placing stations only in build mode
-        if (isLeftPressed() && gamePanel.isInBuildMode()) {
-            Point mousePosition = getMousePosition();
-            addStation(mousePosition.x, mousePosition.y);
+        if (isLeftPressed() && world.isInBuildMode()) {
+            addStation(pressedX, pressedY);
             setLeftPressed(false);
         }
 
         for (Station station : stationsToRemove) {
-            gamePanel.getStations().remove(station);
-            gamePanel.getExclusionCircles().remove(station.getExclusionCircle());
+            world.removeStation(station);
         }
         stationsToRemove.clear();
     }
 
+    /**
+     * Remembers the position of the press event that pressed the grid.
+     */
+    public void setPressedPosition(int x, int y) {
+        this.pressedX = x;
+        this.pressedY = y;
+    }
+
     @Override
-    public void draw(Graphics2D g2D) {
-        int width = gamePanel.getWidth();
-        int height = gamePanel.getHeight();
-        g2D.setColor(new Color(200, 200, 200));
-        for (int x = 0; x <= width; x += (int) GRID_SIZE) {
-            g2D.drawLine(x, 0, x, height);
-        }
-        for (int y = 0; y <= height; y += (int) GRID_SIZE) {
-            g2D.drawLine(0, y, width, y);
+    public void snapshot(FrameSnapshot frame) {
+        // The grid is only visible in build mode
+        if (world.isInBuildMode()) {
+            frame.addCommand(DrawCommand.GRID);
         }
     }
 
     @Override
     public boolean containsPoint(int x, int y) {
-        int width = gamePanel.getWidth();
-        int height = gamePanel.getHeight();
+        int width = World.WIDTH;
+        int height = World.HEIGHT;
         return x >= 0 && x <= width && y >= 0 && y <= height;
     }
 
@@ -60,15 +62,11 @@ public class Grid extends AbstractGameObject {
         int gridX = Math.round((float) x / GRID_SIZE) * GRID_SIZE;
         int gridY = Math.round((float) y / GRID_SIZE) * GRID_SIZE;
 
-        for (StationExclusionCircle exclusionCircle : gamePanel.getExclusionCircles()) {
-            if (exclusionCircle.containsPoint(gridX, gridY)) {
-                return;
-            }
+        if (world.isInExclusionZone(gridX, gridY)) {
+            return;
         }
 
-        Station station = new Station(gridX, gridY, gamePanel);
-        gamePanel.getStations().add(station);
-        gamePanel.getExclusionCircles().add(station.getExclusionCircle());
+        world.addStation(new Station(gridX, gridY, world));
     }
 
     /**
@@ -1,64 +1,44 @@
 package base.gameObjects;
 
-import base.gameObjects.shape.ShapeFactory;
 import base.gameObjects.shape.ShapeType;
-import base.gameObjects.shape.Shape;
 import base.gameObjects.station.Station;
-import base.main.GamePanel;
 
-import java.awt.*;
-
-public class Passenger extends AbstractGameObject {
+/**
+ * Encodes passengers as single {@code long} values, so they can be stored in primitive {@link PassengerBuffer}s
+ * instead of one object per passenger.
+ * <p>
+ * A passenger only has to know where it wants to go (the shape of its destination), where it came from and when
+ * it appeared. Where it is drawn follows from the buffer it is in and its slot in that buffer. Layout:
+ * <pre>
+ * bits  0..7   destination shape (ordinal of the {@link ShapeType})
+ * bits  8..31  id of the origin station
+ * bits 32..63  tick in which the passenger spawned
+ * </pre>
+ */
+public final class Passenger {
     public static final int SIZE = (int) (Station.SIZE * 0.4);
-    private int size = SIZE;  // Default size
-
-    private final Shape shape;
-    private final Color color;
-    private boolean isInTrain;
-
-    public Passenger(int x, int y, ShapeType shapeType, GamePanel gamePanel) {
-        super(GamePanel.PASSENGER_Z_INDEX, gamePanel);
-        this.x = x;
-        this.y = y;
-        this.shape = ShapeFactory.getShape(shapeType);
-        this.color = Color.BLACK; // Schwarze Passagiere an Stationen
-        this.isInTrain = false;
-    }
 
-    @Override
-    public void update(double deltaTime) {
+    private static final ShapeType[] SHAPE_TYPES = ShapeType.values();
+    private static final int SHAPE_BITS = 8;
+    private static final int STATION_BITS = 24;
+    private static final long SHAPE_MASK = (1L << SHAPE_BITS) - 1;
+    private static final long STATION_MASK = (1L << STATION_BITS) - 1;
 
-    }
-
-    @Override
-    public void draw(Graphics2D g2D) {
-        Color drawColor = isInTrain ? Color.WHITE : color;
-        shape.draw(
-                g2D,
-                new Shape.Position(x, y),
-                new Shape.Style(size, drawColor),
-                new Shape.Border(0, Color.BLACK),
-                new Shape.SelectionState(false, null));
-    }
-
-    @Override
-    public boolean containsPoint(int x, int y) {
-        return shape.containsPoint(x, y, this.x, this.y, SIZE);
-    }
-
-    public ShapeType getShapeType() {
-        return shape.getType();
-    }
-
-    public void setInTrain(boolean inTrain) {
-        this.isInTrain = inTrain;
-    }
+    private Passenger() {}
 
-    public void setSize(int size) {
-        this.size = size;
+    /**
+     * Encodes a new passenger.
+     * @param shapeType Shape of the destination
+     * @param originStationId Id of the station at which the passenger spawned (lower 24 bits are kept)
+     * @param spawnTick Tick in which the passenger spawned
+     */
+    public static long encode(ShapeType shapeType, int originStationId, int spawnTick) {
+        return shapeType.ordinal()
+                | (originStationId & STATION_MASK) << SHAPE_BITS
+                | (long) spawnTick << (SHAPE_BITS + STATION_BITS);
     }
 
-    public int getSize() {
-        return size;
+    public static ShapeType getShapeType(long passenger) {
+        return SHAPE_TYPES[(int) (passenger & SHAPE_MASK)];
     }
 }
@@ -0,0 +1,201 @@
+package base.gameObjects;
+
+import base.gameObjects.shape.ShapeType;
+
+/**
+ * Fixed-capacity, ordered buffer of passengers encoded with {@link Passenger}. Stations and trains keep their
+ * passengers in one buffer each, so a waiting passenger costs a few bytes instead of a game object.
+ * <p>
+ * Passengers are stored in one array of slots, and the passengers of each destination shape are linked in a FIFO
+ * list with a counter. Unloading all passengers of a shape hands its whole list to the free slots at once, and
+ * boarding takes the oldest passengers from the heads of the wanted shapes' lists, so an exchange costs O(moved)
+ * regardless of the number of waiting passengers. Every passenger gets a sequence number when it enters the
+ * buffer, which tells which head is the oldest. A slot costs 14 bytes: the passenger, its sequence number and a
+ * 16-bit link.
+ */
+public class PassengerBuffer {
+    private static final int SHAPE_COUNT = ShapeType.values().length;
+    private static final short NONE = -1;
+
+    /**
+     * Receives the passengers of a buffer in order, see {@link #forEach(PassengerVisitor)}.
+     */
+    @FunctionalInterface
+    public interface PassengerVisitor {
+        void visit(int slot, long passenger);
+    }
+
+    private final int capacity;
+    private final long[] passengers;
+    private final int[] sequences;        // Order of entry; compared by difference, so they may overflow
+    private final short[] links;          // Next passenger with the same shape, or next free slot
+    private final short[] shapeHeads;     // Oldest and newest passenger of each shape
+    private final short[] shapeTails;
+    private final int[] counts;
+    private final short[] cursors;        // Scratch for forEach, which is only called by the simulation thread
+    private short free;
+    private int size;
+    private int nextSequence;
+
+    public PassengerBuffer(int capacity) {
+        if (capacity > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacity too large: " + capacity);
+        }
+        this.capacity = capacity;
+        this.passengers = new long[capacity];
+        this.sequences = new int[capacity];
+        this.links = new short[capacity];
+        this.shapeHeads = new short[SHAPE_COUNT];
+        this.shapeTails = new short[SHAPE_COUNT];
+        this.counts = new int[SHAPE_COUNT];
+        this.cursors = new short[SHAPE_COUNT];
+        clear();
+    }
+
+    /**
+     * Adds the passenger at the end, if there is space left.
+     * @return true if the passenger was added
+     */
+    public boolean add(long passenger) {
+        if (size == capacity) {
+            return false;
+        }
+        short slot = free;
+        free = links[slot];
+        passengers[slot] = passenger;
+        sequences[slot] = nextSequence++;
+        links[slot] = NONE;
+
+        int shape = Passenger.getShapeType(passenger).ordinal();
+        if (shapeTails[shape] != NONE) {
+            links[shapeTails[shape]] = slot;
+        } else {
+            shapeHeads[shape] = slot;
+        }
+        shapeTails[shape] = slot;
+        counts[shape]++;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes all passengers with the given destination shape.
+     * @return The number of removed passengers
+     */
+    public int removeShape(ShapeType shapeType) {
+        int shape = shapeType.ordinal();
+        int removed = counts[shape];
+        if (removed > 0) {
+            // The whole list becomes the front of the free slots
+            links[shapeTails[shape]] = free;
+            free = shapeHeads[shape];
+            shapeHeads[shape] = shapeTails[shape] = NONE;
+            counts[shape] = 0;
+            size -= removed;
+        }
+        return removed;
+    }
+
+    /**
+     * Moves the oldest passengers with one of the given destination shapes to the end of the target, until the
+     * target is full.
+     * @param shapes Bitmask over the ordinals of the {@link ShapeType}s of the passengers to move
+     * @return The number of moved passengers
+     */
+    public int moveTo(PassengerBuffer target, long shapes) {
+        int moved = 0;
+        while (!target.isFull()) {
+            int shape = findOldestShape(shapeHeads, shapes);
+            if (shape < 0) {
+                break;
+            }
+            short slot = shapeHeads[shape];
+            target.add(passengers[slot]);
+
+            shapeHeads[shape] = links[slot];
+            if (shapeHeads[shape] == NONE) {
+                shapeTails[shape] = NONE;
+            }
+            counts[shape]--;
+            links[slot] = free;
+            free = slot;
+            moved++;
+        }
+        size -= moved;
+        return moved;
+    }
+
+    /**
+     * Visits all passengers in the order in which they entered the buffer. The slot is the position in that order.
+     */
+    public void forEach(PassengerVisitor visitor) {
+        System.arraycopy(shapeHeads, 0, cursors, 0, SHAPE_COUNT);
+        for (int index = 0; index < size; index++) {
+            int shape = findOldestShape(cursors, -1L);
+            short slot = cursors[shape];
+            visitor.visit(index, passengers[slot]);
+            cursors[shape] = links[slot];
+        }
+    }
+
+    /**
+     * Returns the shape (out of the given bitmask) whose passenger at the given position of its list entered the
+     * buffer first, or -1 if there are no such passengers.
+     */
+    private int findOldestShape(short[] positions, long shapes) {
+        int shape = -1;
+        for (int s = 0; s < SHAPE_COUNT; s++) {
+            short slot = positions[s];
+            if (slot != NONE && (shapes & 1L << s) != 0
+                    && (shape < 0 || sequences[slot] - sequences[positions[shape]] < 0)) {
+                shape = s;
+            }
+        }
+        return shape;
+    }
+
+    public void clear() {
+        for (int i = 0; i < capacity; i++) {
+            links[i] = i + 1 < capacity ? (short) (i + 1) : NONE;
+        }
+        free = capacity > 0 ? 0 : NONE;
+        for (int s = 0; s < SHAPE_COUNT; s++) {
+            shapeHeads[s] = shapeTails[s] = NONE;
+            counts[s] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the number of passengers with the given destination shape.
+     */
+    public int count(ShapeType shapeType) {
+        return counts[shapeType.ordinal()];
+    }
+
+    /**
+     * Returns the number of passengers with one of the given destination shapes.
+     * @param shapes Bitmask over the ordinals of the {@link ShapeType}s
+     */
+    public int count(long shapes) {
+        int count = 0;
+        for (int s = 0; s < SHAPE_COUNT; s++) {
+            if ((shapes & 1L << s) != 0) {
+                count += counts[s];
+            }
+        }
+        return count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+}
@@ -2,6 +2,7 @@ package base.gameObjects.shape;
 
 import java.awt.*;
 import java.awt.geom.GeneralPath;
+import java.awt.geom.Path2D;
 
 public interface Shape {
     record Position(int x, int y) {}
@@ -10,21 +11,46 @@ public interface Shape {
     record SelectionState(boolean selected, Color selectionColor) {}
 
     default void draw(Graphics2D g2D, Position position, Style style, Border border, SelectionState selectionState) {
-        if (selectionState.selected) {
+        draw(g2D, position.x, position.y, style.size, style.fillColor, border.borderThickness, border.borderColor,
+                selectionState.selected ? selectionState.selectionColor : null);
+    }
+
+    /**
+     * Draws the shape from cached paths, without allocating.
+     * @param selectionColor Color of the selection border around the shape, or null if not selected
+     */
+    default void draw(Graphics2D g2D, double x, double y, int size, Color fillColor,
+                      int borderThickness, Color borderColor, Color selectionColor) {
+        g2D.translate(x, y);
+
+        if (selectionColor != null) {
             // Draw outermost shape (selection border)
-            g2D.setColor(selectionState.selectionColor);
-            g2D.fill(getShapePath(position.x, position.y, style.size + 2 * border.borderThickness));
+            g2D.setColor(selectionColor);
+            g2D.fill(ShapePathCache.get(this, size, -borderThickness));
         }
 
-        // Draw outer shape (border)
-        g2D.setColor(border.borderColor);
-        g2D.fill(getShapePath(position.x, position.y, style.size));
+        // Draw outer shape (border), which would be hidden by the inner shape without a border
+        if (borderThickness != 0) {
+            g2D.setColor(borderColor);
+            g2D.fill(ShapePathCache.get(this, size, 0));
+        }
 
         // Draw inner shape (fill)
-        g2D.setColor(style.fillColor);
-        g2D.fill(getShapePath(position.x, position.y, style.size - 2 * border.borderThickness));
+        g2D.setColor(fillColor);
+        g2D.fill(ShapePathCache.get(this, size, borderThickness));
+
+        g2D.translate(-x, -y);
+    }
+
+    /**
+     * Creates the path of the shape with the given size, centered at the origin and with all edges moved inward
+     * by the inset (outward if negative). Called once per size and inset, the paths are cached for drawing.
+     */
+    default Path2D createOriginPath(int size, int inset) {
+        return getShapePath(0, 0, size - 2 * inset);
     }
+
     boolean containsPoint(int x, int y, int centerX, int centerY, double size);
     GeneralPath getShapePath(int centerX, int centerY, int size);
     ShapeType getType();
-}
\ No newline at end of file
+}
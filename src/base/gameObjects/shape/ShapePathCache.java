@@ -0,0 +1,56 @@
+package base.gameObjects.shape;
+
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cache of the origin-centered paths of all shapes, keyed by shape type, size and inset.
+ * <p>
+ * Only a handful of combinations are ever drawn (stations, their borders and selections, and passengers), so the
+ * entries of each type are kept in small arrays that are scanned linearly. Lookups don't lock or allocate; new
+ * entries are added by replacing the arrays with larger copies. The cached paths are shared and must never be
+ * modified.
+ */
+final class ShapePathCache {
+    private record Entries(long[] keys, Path2D[] paths) {}
+
+    private static final AtomicReferenceArray<Entries> entriesByType =
+            new AtomicReferenceArray<>(ShapeType.values().length);
+
+    static {
+        for (int i = 0; i < entriesByType.length(); i++) {
+            entriesByType.set(i, new Entries(new long[0], new Path2D[0]));
+        }
+    }
+
+    private ShapePathCache() {}
+
+    /**
+     * Returns the path of the shape with the given size, centered at the origin and with all edges moved
+     * inward by the inset (outward if negative). The path is created on the first call.
+     */
+    static Path2D get(Shape shape, int size, int inset) {
+        int type = shape.getType().ordinal();
+        long key = ((long) size << 32) | (inset & 0xFFFFFFFFL);
+
+        while (true) {
+            Entries entries = entriesByType.get(type);
+            for (int i = 0; i < entries.keys.length; i++) {
+                if (entries.keys[i] == key) {
+                    return entries.paths[i];
+                }
+            }
+
+            // Not cached yet, add the path unless another thread added other paths in the meantime
+            Path2D path = shape.createOriginPath(size, inset);
+            long[] keys = Arrays.copyOf(entries.keys, entries.keys.length + 1);
+            Path2D[] paths = Arrays.copyOf(entries.paths, entries.paths.length + 1);
+            keys[keys.length - 1] = key;
+            paths[paths.length - 1] = path;
+            if (entriesByType.compareAndSet(type, entries, new Entries(keys, paths))) {
+                return path;
+            }
+        }
+    }
+}
@@ -2,53 +2,36 @@ package base.gameObjects.shape;
 
 import java.awt.*;
 import java.awt.geom.GeneralPath;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 
 public class TriangleShape implements Shape {
-    @Override
-    public void draw(Graphics2D g2D, Position position, Style style, Border border, SelectionState selectionState) {
-        // Draw selection border if selected (scaled outward)
-        if (selectionState.selected()) {
-            GeneralPath selectionTriangle = createScaledTriangle(position, style.size(), -border.borderThickness());
-            g2D.setColor(selectionState.selectionColor());
-            g2D.fill(selectionTriangle);
-        }
-
-        // Draw outer triangle (border, not scaled)
-        GeneralPath triangleOuter = createScaledTriangle(position, style.size(), 0);
-        g2D.setColor(border.borderColor());
-        g2D.fill(triangleOuter);
-
-        // Draw inner triangle (fill, scaled inward)
-        GeneralPath triangleInner = createScaledTriangle(position, style.size(), border.borderThickness());
-        g2D.setColor(style.fillColor());
-        g2D.fill(triangleInner);
-    }
-
     /**
      * Creates a scaled triangle using geometric homothety for uniform border effect.
      * The scaling process:
-     * 1. Creates triangle with given size and center point
+     * 1. Creates triangle with given size, centered at the origin
      * 2. Calculates the inscribed circle's radius (R) using triangle's area and perimeter
-     * 3. Determines scaling factor k = (R - borderThickness) / R for homothetic transformation
+     * 3. Determines scaling factor k = (R - inset) / R for homothetic transformation
      * 4. Finds inscribed circle's center (Q) as weighted average of vertices
      * 5. Scales triangle vertices from point Q by factor k to create scaled triangle
      *
-     * This ensures the scaled triangle maintains the same shape and has exact borderThickness
-     * distance from all edges of the original triangle. A negative borderThickness scales outward,
+     * This ensures the scaled triangle maintains the same shape and has exact inset
+     * distance from all edges of the original triangle. A negative inset scales outward,
      * zero means no scaling, and positive scales inward.
+     * The result is cached by {@link ShapePathCache}, so this only runs once per size and inset.
      */
-    private GeneralPath createScaledTriangle(Position position, int size, double borderThickness) {
+    @Override
+    public Path2D createOriginPath(int size, int inset) {
         // Calculate triangle points
         double edgeLength = 2.0 * size / Math.sqrt(3);
         double halfSize = size / 2.0;
 
-        Point2D.Double A = new Point2D.Double(position.x(), position.y() - halfSize);  // top
-        Point2D.Double B = new Point2D.Double(position.x() + edgeLength/2.0, position.y() + halfSize);  // right
-        Point2D.Double C = new Point2D.Double(position.x() - edgeLength/2.0, position.y() + halfSize);  // left
+        Point2D.Double A = new Point2D.Double(0, -halfSize);  // top
+        Point2D.Double B = new Point2D.Double(edgeLength/2.0, halfSize);  // right
+        Point2D.Double C = new Point2D.Double(-edgeLength/2.0, halfSize);  // left
 
-        // If no scaling needed (borderThickness == 0), return triangle directly
-        if (borderThickness == 0) {
+        // If no scaling needed (inset == 0), return triangle directly
+        if (inset == 0) {
             return getShapePath(A.x, A.y, B.x, B.y, C.x, C.y);
         }
 
@@ -59,10 +42,10 @@ public class TriangleShape implements Shape {
         double p = (a + b + c) / 2.0;  // semi-perimeter
         double area = Math.sqrt(p * (p-a) * (p-b) * (p-c));  // area (using Heron's formula)
         double R = 2 * area / (a + b + c);  // radius of inscribed circle
-        double k = (R - borderThickness) / R;  // scaling factor
+        double k = (R - inset) / R;  // scaling factor
 
         // Calculate incenter point Q (weighted average of vertices)
-        double qx = (a*position.x() + b*(B.x) + c*(C.x)) / (a + b + c);
+        double qx = (a*(A.x) + b*(B.x) + c*(C.x)) / (a + b + c);
         double qy = (a*(A.y) + b*(B.y) + c*(C.y)) / (a + b + c);
         Point2D.Double Q = new Point2D.Double(qx, qy);
 
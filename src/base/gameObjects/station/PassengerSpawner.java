@@ -1,17 +1,16 @@
 package base.gameObjects.station;
 
 import base.gameObjects.Passenger;
+import base.gameObjects.PassengerBuffer;
 import base.gameObjects.shape.ShapeType;
-import base.main.GamePanel;
+import base.main.World;
+import base.rendering.FrameSnapshot;
 
-import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 
 public class PassengerSpawner {
     private static final double BASE_SPAWN_INTERVAL = 5.0;
-    private static final int MAX_PASSENGERS = 21;
+    static final int MAX_PASSENGERS = 21;
     private static final int PASSENGERS_PER_ROW = 7;
     private static final int PASSENGER_SPACING = 1;
     private static final int ROW_SPACING = 1;
@@ -19,54 +18,81 @@ public class PassengerSpawner {
     private static final int OFFSET_Y = -Station.SIZE/2;        // Vertical distance from the station (negative = up)
 
     private final Station station;
-    private final GamePanel gamePanel;
+    private final World world;
     private final Random random;
-    private double timeSinceLastSpawn;
     private double spawnRateMultiplier;
+    private boolean running;
+
+    // Schedule, managed by the world's SpawnScheduler
+    int scheduleVersion;
+    boolean scheduled;
+    double nextSpawnTime;
 
     /**
      * Creates a new {@code PassengerSpawner} for the given station and game panel.
+     * The spawner is started by the world when the station is added.
      * @param station The station at which passengers should spawn
-     * @param gamePanel The game panel in which the station is located
+     * @param world The world in which the station is located
      */
-    public PassengerSpawner(Station station, GamePanel gamePanel) {
+    public PassengerSpawner(Station station, World world) {
         this.station = station;
-        this.gamePanel = gamePanel;
-        this.random = new Random();
-        this.timeSinceLastSpawn = 0;
+        this.world = world;
+        this.random = world.createRandom(station.getId());
         this.spawnRateMultiplier = 1.0;
     }
 
-    public void update(double deltaTime, ArrayList<Passenger> passengers) {
-        if (passengers.size() >= MAX_PASSENGERS) {
-            return;
-        }
+    /**
+     * Starts spawning passengers, with the first one after a full spawn interval.
+     */
+    public void start() {
+        running = true;
+        world.getSpawnScheduler().schedule(this, getSpawnInterval());
+    }
 
-        // Spawn a passenger if enough time has passed
-        timeSinceLastSpawn += deltaTime;
-        double currentSpawnInterval = BASE_SPAWN_INTERVAL * spawnRateMultiplier;
+    public void stop() {
+        running = false;
+        world.getSpawnScheduler().cancel(this);
+    }
+
+    /**
+     * Restarts spawning after passengers left the station. A spawner is parked while its station is full;
+     * the next passenger then spawns a full interval after the station has space again.
+     */
+    public void onPassengersLeft() {
+        if (running && !scheduled && !station.getPassengers().isFull()) {
+            start();
+        }
+    }
 
-        if (timeSinceLastSpawn >= currentSpawnInterval) {
+    /**
+     * Spawns a passenger. Called by the {@link SpawnScheduler} when the spawn is due.
+     * @return Whether the next spawn should be scheduled; false while the station is full
+     */
+    boolean spawn() {
+        PassengerBuffer passengers = station.getPassengers();
+        if (!passengers.isFull()) {
             spawnPassenger(passengers);
-            timeSinceLastSpawn = 0;
         }
+        return !passengers.isFull();
     }
 
     /**
      * Spawns a new passenger with a random allowed shape at the station of this {@code PassengerSpawner}.
-     * @param passengers The list of passengers to which the new passenger should be added
+     * @param passengers The buffer to which the new passenger should be added
      */
-    private void spawnPassenger(ArrayList<Passenger> passengers) {
+    private void spawnPassenger(PassengerBuffer passengers) {
         ShapeType shape = getRandomAllowedShape();
         if (shape != null) {
-            Point position = getSpawnPosition(passengers.size());
-            Passenger passenger = new Passenger(position.x, position.y, shape, gamePanel);
-            passengers.add(passenger);
+            passengers.add(Passenger.encode(shape, station.getId(), world.getTick()));
         }
     }
 
+    public double getSpawnInterval() {
+        return BASE_SPAWN_INTERVAL * spawnRateMultiplier;
+    }
+
     /**
-     * Calculates the spawn position for a new passenger based on {@code PASSENGERS_PER_ROW}.
+     * Writes the position of the waiting passenger in the given slot based on {@code PASSENGERS_PER_ROW}.
      * Passengers are arranged in a zigzag pattern, alternating between left-to-right and right-to-left rows.
      * The last passenger in each row is placed slightly lower to indicate the row's direction.
      * <p>
@@ -77,10 +103,10 @@ public class PassengerSpawner {
      *      P P P P P p    (row 2: left to right...)
      * </pre>
      *
-     * @param passengerNumber The number of the passenger to be spawned (first passenger = 0).
-     * @return A Point object containing the x and y coordinates where the passenger should spawn
+     * @param passengerNumber The slot of the passenger in the station's buffer (first passenger = 0).
+     * @param frame Receives the x and y coordinates where the passenger should be drawn
      */
-    private Point getSpawnPosition(int passengerNumber) {
+    void putPassengerPosition(int passengerNumber, FrameSnapshot frame) {
         passengerNumber -= 1; // Allow one passenger more in the first row (the first P in the example above)
                                 // Remove if first row should also have 7 passengers, like the other rows
 
@@ -110,7 +136,8 @@ public class PassengerSpawner {
                 y += (Passenger.SIZE / 2) * row;
             }
         }
-        return new Point(x, y);
+        frame.putInt(x);
+        frame.putInt(y);
     }
 
     /**
@@ -122,16 +149,6 @@ public class PassengerSpawner {
      * @return Random shape or null if no shape is available
      */
     private ShapeType getRandomAllowedShape() {
-        // Get all shapes of existing stations, excluding the shape of this station
-        List<ShapeType> availableShapes = new ArrayList<>();
-        for (Station station : gamePanel.getStations()) {
-            ShapeType stationType = station.getCurrentShapeType();
-            if (stationType != this.station.getCurrentShapeType() && !availableShapes.contains(stationType)) {
-                availableShapes.add(stationType);
-            }
-        }
-
-        // Return a random shape from the available shapes or null if no shape is available
-        return availableShapes.isEmpty() ? null : availableShapes.get(random.nextInt(availableShapes.size()));
+        return world.getShapeCensus().getRandomShapeExcept(station.getCurrentShapeType(), random);
     }
-}
\ No newline at end of file
+}
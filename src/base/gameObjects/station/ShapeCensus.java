@@ -0,0 +1,70 @@
+package base.gameObjects.station;
+
+import base.gameObjects.shape.ShapeType;
+
+import java.util.Random;
+
+/**
+ * Counts the stations of each {@link ShapeType} in the world, so spawners can find the shapes that exist without
+ * looking at every station.
+ * <p>
+ * The census is updated incrementally when stations are added, removed or change their shape. Besides the counts
+ * it keeps a bitmask of the shapes with at least one station, so drawing a random shape takes a few bit
+ * operations and doesn't allocate.
+ */
+public class ShapeCensus {
+    private static final ShapeType[] SHAPE_TYPES = ShapeType.values();
+
+    private final int[] counts;
+    private long presentShapes;   // Bit i is set if there is at least one station with the shape of ordinal i
+
+    public ShapeCensus() {
+        if (SHAPE_TYPES.length > Long.SIZE) {
+            throw new IllegalStateException("The census supports at most " + Long.SIZE + " shape types");
+        }
+        this.counts = new int[SHAPE_TYPES.length];
+    }
+
+    public void add(ShapeType shapeType) {
+        int shape = shapeType.ordinal();
+        if (counts[shape]++ == 0) {
+            presentShapes |= 1L << shape;
+        }
+    }
+
+    public void remove(ShapeType shapeType) {
+        int shape = shapeType.ordinal();
+        if (--counts[shape] == 0) {
+            presentShapes &= ~(1L << shape);
+        }
+    }
+
+    public void change(ShapeType oldShapeType, ShapeType newShapeType) {
+        if (oldShapeType != newShapeType) {
+            remove(oldShapeType);
+            add(newShapeType);
+        }
+    }
+
+    public int count(ShapeType shapeType) {
+        return counts[shapeType.ordinal()];
+    }
+
+    /**
+     * Returns a random shape that at least one station has, other than the excluded shape.
+     * @return Random shape or null if no shape is available
+     */
+    public ShapeType getRandomShapeExcept(ShapeType excluded, Random random) {
+        long candidates = presentShapes & ~(1L << excluded.ordinal());
+        int candidateCount = Long.bitCount(candidates);
+        if (candidateCount == 0) {
+            return null;
+        }
+
+        // Clear the lowest set bits until the chosen one is the lowest
+        for (int i = random.nextInt(candidateCount); i > 0; i--) {
+            candidates &= candidates - 1;
+        }
+        return SHAPE_TYPES[Long.numberOfTrailingZeros(candidates)];
+    }
+}
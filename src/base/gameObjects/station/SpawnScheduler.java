@@ -0,0 +1,68 @@
+package base.gameObjects.station;
+
+import java.util.PriorityQueue;
+
+/**
+ * Fires the passenger spawns of all stations at their due times, so stations cost nothing in ticks in which they
+ * don't spawn.
+ * <p>
+ * Each running {@link PassengerSpawner} has one entry with its next spawn time in a min-heap. The scheduler has its
+ * own clock, which only advances in play mode, and every tick pops the entries that are due. Rescheduling or
+ * cancelling a spawner doesn't search the heap: the spawner's schedule version is increased, and entries with an
+ * older version are dropped when they reach the top. Spawners of full stations are parked without an entry until
+ * passengers leave the station.
+ */
+public class SpawnScheduler {
+    private record Entry(double time, long sequence, PassengerSpawner spawner, int version) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int result = Double.compare(time, other.time);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);   // Fire in scheduling order
+        }
+    }
+
+    private final PriorityQueue<Entry> queue;
+    private double time;          // Play time, in seconds
+    private long nextSequence;
+
+    public SpawnScheduler() {
+        this.queue = new PriorityQueue<>();
+    }
+
+    /**
+     * Advances the clock and fires all spawns that are due.
+     */
+    public void update(double deltaTime) {
+        time += deltaTime;
+        while (!queue.isEmpty() && queue.peek().time <= time) {
+            Entry entry = queue.poll();
+            PassengerSpawner spawner = entry.spawner;
+            if (entry.version != spawner.scheduleVersion) {
+                continue;   // Rescheduled or cancelled
+            }
+
+            spawner.scheduled = false;
+            if (spawner.spawn()) {
+                schedule(spawner, spawner.getSpawnInterval());
+            }
+        }
+    }
+
+    /**
+     * Schedules the next spawn of the spawner after the given delay, replacing its current schedule.
+     */
+    public void schedule(PassengerSpawner spawner, double delay) {
+        spawner.scheduleVersion++;
+        spawner.scheduled = true;
+        spawner.nextSpawnTime = time + delay;
+        queue.add(new Entry(spawner.nextSpawnTime, nextSequence++, spawner, spawner.scheduleVersion));
+    }
+
+    /**
+     * Stops the spawner until it is scheduled again.
+     */
+    public void cancel(PassengerSpawner spawner) {
+        spawner.scheduleVersion++;
+        spawner.scheduled = false;
+    }
+}
@@ -3,77 +3,106 @@ package base.gameObjects.station;
 import base.gameObjects.AbstractGameObject;
 import base.gameObjects.Grid;
 import base.gameObjects.Passenger;
+import base.gameObjects.PassengerBuffer;
 import base.gameObjects.shape.Shape;
 import base.gameObjects.shape.ShapeFactory;
 import base.gameObjects.shape.ShapeType;
-import base.main.GamePanel;
+import base.main.World;
+import base.rendering.Drawable;
+import base.rendering.FrameSnapshot;
+import base.rendering.FrameSnapshot.DrawCommand;
 
 import java.awt.*;
-import java.util.ArrayList;
 
 public class Station extends AbstractGameObject {
     public static final int SIZE = Grid.GRID_SIZE;
     public static final int BORDER_THICKNESS = 5;
 
+    private final int id;
     private boolean selected = false;
     private Color selectedColor = Color.RED;
     private final StationExclusionCircle exclusionCircle;
-    private final GamePanel gamePanel;
+    private final World world;
     private ShapeType currentShapeType = ShapeType.CIRCLE;
     private Shape currentShape;
     private boolean shapeChangeHandled = false;  // Allow only one shape change per click
-    private final ArrayList<Passenger> passengers;
+    private final PassengerBuffer passengers;
     private final PassengerSpawner passengerSpawner;
+    private final Drawable passengerLayer = this::snapshotPassengers;   // Passengers are drawn on their own z layer
 
-    public Station(int x, int y, GamePanel gamePanel) {
-        super(GamePanel.STATION_Z_INDEX, gamePanel);
+    public Station(int x, int y, World world) {
+        super(World.STATION_Z_INDEX, world);
 
-        this.gamePanel = gamePanel;
+        this.world = world;
+        this.id = world.nextStationId();
         this.x = x;
         this.y = y;
-        this.exclusionCircle = new StationExclusionCircle(this, gamePanel);
+        this.exclusionCircle = new StationExclusionCircle(this, world);
         this.setPressable(true);
         this.currentShape = ShapeFactory.getShape(currentShapeType);
-        this.passengers = new ArrayList<>();
-        this.passengerSpawner = new PassengerSpawner(this, gamePanel);
+        this.passengers = new PassengerBuffer(PassengerSpawner.MAX_PASSENGERS);
+        this.passengerSpawner = new PassengerSpawner(this, world);
     }
 
+    /**
+     * Removes the station or changes its shape in build mode. Passengers are spawned by the
+     * world's {@link SpawnScheduler}, so the station has nothing to do in play mode.
+     */
     @Override
     public void update(double deltaTime) {
-        // Remove station or change shape if in build mode
-        if (gamePanel.isInBuildMode()) {
+        if (world.isInBuildMode()) {
             if (isRightPressed()) {
-                gamePanel.getGrid().removeStation(this);
+                world.getGrid().removeStation(this);
             }
             if (isLeftPressed() && !selected && !shapeChangeHandled) {
-                currentShapeType = currentShapeType.next();
-                currentShape = ShapeFactory.getShape(currentShapeType);
+                setShapeType(currentShapeType.next());
                 passengers.clear();
+                passengerSpawner.onPassengersLeft();
                 shapeChangeHandled = true;
             }
         }
-        // Spawn passengers if not in build mode
-        else {
-            passengerSpawner.update(deltaTime, passengers);
+    }
+
+    /**
+     * Takes passengers off a train that continue their trip on another line, as long as there is space.
+     * @param shapes Bitmask over the ordinals of the destination shapes of the passengers that get off
+     */
+    public void receiveTransferringPassengers(PassengerBuffer source, long shapes) {
+        source.moveTo(passengers, shapes);
+    }
+
+    /**
+     * Moves waiting passengers into a train, in their order of arrival, as long as there is space.
+     * @param shapes Bitmask over the ordinals of the destination shapes of the passengers that may board
+     */
+    public void boardPassengers(PassengerBuffer target, long shapes) {
+        if (passengers.moveTo(target, shapes) > 0) {
+            passengerSpawner.onPassengersLeft();
         }
     }
 
     @Override
-    public void draw(Graphics2D g2D) {
-        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Draw station
-        currentShape.draw(
-                g2D,
-                new Shape.Position(x, y),
-                new Shape.Style(SIZE, Color.WHITE),
-                new Shape.Border(BORDER_THICKNESS, Color.BLACK),
-                new Shape.SelectionState(selected, selectedColor));
-
-        // Draw passengers
-        for (Passenger passenger : passengers) {
-            passenger.draw(g2D);
-        }
+    public void snapshot(FrameSnapshot frame) {
+        frame.addCommand(DrawCommand.STATION);
+        frame.putInt(x);
+        frame.putInt(y);
+        frame.putObject(currentShapeType);
+        frame.putBoolean(selected);
+        frame.putObject(selectedColor);
+    }
+
+    /**
+     * Writes the passengers waiting at this station. Drawn separately from the station itself, so passengers
+     * can be drawn on top of trains ({@link World#PASSENGER_Z_INDEX}).
+     */
+    private void snapshotPassengers(FrameSnapshot frame) {
+        passengers.forEach((slot, passenger) -> {
+            frame.addCommand(DrawCommand.PASSENGER);
+            passengerSpawner.putPassengerPosition(slot, frame);
+            frame.putInt(Passenger.SIZE);
+            frame.putObject(Passenger.getShapeType(passenger));
+            frame.putObject(Color.BLACK);
+        });
     }
 
     @Override
@@ -96,8 +125,22 @@ public class Station extends AbstractGameObject {
     }
 
     public void setShapeType(ShapeType shapeType) {
+        ShapeType oldShapeType = currentShapeType;
         this.currentShapeType = shapeType;
         this.currentShape = ShapeFactory.getShape(shapeType);
+        world.onStationShapeChanged(this, oldShapeType);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public PassengerSpawner getPassengerSpawner() {
+        return passengerSpawner;
+    }
+
+    public Drawable getPassengerLayer() {
+        return passengerLayer;
     }
 
     public StationExclusionCircle getExclusionCircle() {
@@ -108,7 +151,7 @@ public class Station extends AbstractGameObject {
         return currentShapeType;
     }
 
-    public ArrayList<Passenger> getPassengers() {
+    public PassengerBuffer getPassengers() {
         return passengers;
     }
 }
@@ -2,9 +2,9 @@ package base.gameObjects.station;
 
 import base.gameObjects.AbstractGameObject;
 import base.gameObjects.Grid;
-import base.main.GamePanel;
-
-import java.awt.*;
+import base.main.World;
+import base.rendering.FrameSnapshot;
+import base.rendering.FrameSnapshot.DrawCommand;
 
 public class StationExclusionCircle extends AbstractGameObject {
     public static final double EXCLUSION_CIRCLE_RADIUS_IN_GRID_CELLS = 2.2;
@@ -12,8 +12,8 @@ public class StationExclusionCircle extends AbstractGameObject {
     private Station station;
     private final int size;
 
-    public StationExclusionCircle(Station station, GamePanel gamePanel) {
-        super(GamePanel.STATION_EXCLUSION_CIRCLE_Z_INDEX, gamePanel);
+    public StationExclusionCircle(Station station, World world) {
+        super(World.STATION_EXCLUSION_CIRCLE_Z_INDEX, world);
         this.station = station;
         this.size = (int) (EXCLUSION_CIRCLE_RADIUS_IN_GRID_CELLS * 2 * Grid.GRID_SIZE);
         this.x = station.x - size / 2;
@@ -25,10 +25,11 @@ public class StationExclusionCircle extends AbstractGameObject {
     }
 
     @Override
-    public void draw(Graphics2D g2D) {
-        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2D.setColor(GamePanel.BACKGROUND_COLOR);
-        g2D.fillOval(x, y, size, size);
+    public void snapshot(FrameSnapshot frame) {
+        frame.addCommand(DrawCommand.EXCLUSION_CIRCLE);
+        frame.putInt(x);
+        frame.putInt(y);
+        frame.putInt(size);
     }
 
     @Override
@@ -38,4 +39,8 @@ public class StationExclusionCircle extends AbstractGameObject {
         int distance = (int) Math.sqrt(Math.pow(x - centerX, 2) + Math.pow(y - centerY, 2));
         return distance <= size / 2;
     }
+
+    public int getSize() {
+        return size;
+    }
 }
@@ -1,23 +1,23 @@
 package base.gameObjects.train;
 
 import base.gameObjects.AbstractGameObject;
-import base.gameObjects.Passenger;
 import base.gameObjects.station.Station;
+import base.gameObjects.trainline.RoutingTable;
 import base.gameObjects.trainline.TrainLine;
 import base.gameObjects.trainline.TrainLineSegment;
-import base.main.GamePanel;
+import base.gameObjects.trainline.TrainLineTrack;
+import base.main.World;
+import base.rendering.FrameSnapshot;
+import base.rendering.FrameSnapshot.DrawCommand;
 import base.util.PathUtils;
 import base.util.PathUtils.PathPosition;
 
-import java.awt.*;
-import java.awt.geom.AffineTransform;
-import java.awt.geom.Path2D;
-import java.awt.geom.PathIterator;
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents a train that moves along the segments ({@code TrainLineSegment}) of a {@code TrainLine},
  * picking up and dropping off passengers ({@code Passenger}) at stations ({@code Station}).
+ * The movement of all trains is simulated by the world's {@link TrainEngine}, which stores their positions.
  */
 public class Train extends AbstractGameObject {
     // Physical dimensions
@@ -30,26 +30,19 @@ public class Train extends AbstractGameObject {
     public static final double IDEAL_ACCELERATION_DISTANCE = 57.0;
     public static final double IDEAL_BRAKE_DISTANCE = 75.0;
 
-    // Position and orientation
-    private int x, y;
-    private double angle;
-
-    // Movement state
-    private double currentSpeed;
-    private boolean moving;
-    private boolean movingForward = true;
-    private double currentDistance = 0.0;
-    private double totalPathLength;
-    private double accelerationDistance;
-    private double brakeDistance;
+    // Slot of the train's kinematic state in the train engine
+    private final TrainEngine engine;
+    private int slot;
 
     // Train line information
     private final TrainLine trainLine;
-    private TrainLineSegment currentSegment;
+    private final TrainLineTrack track;
 
     // Passenger handling
     private final TrainPassengerCompartment passengerCompartment;
 
+    private final World world;
+
     /**
      * Creates a new train at the specified position on the given train line.
      *
@@ -57,52 +50,57 @@ public class Train extends AbstractGameObject {
      * @param y Initial y-coordinate
      * @param trainLine The train line this train operates on
      * @param targetStation The initial target station
-     * @param gamePanel Reference to the game panel
+     * @param world The world the train is part of
      */
-    public Train(int x, int y, TrainLine trainLine, Station targetStation, GamePanel gamePanel) {
-        super(GamePanel.TRAIN_Z_INDEX, gamePanel);
+    public Train(int x, int y, TrainLine trainLine, Station targetStation, World world) {
+        super(World.TRAIN_Z_INDEX, world);
         this.x = x;
         this.y = y;
         this.trainLine = trainLine;
-        this.moving = true;
+        this.track = trainLine.getTrack();
+        this.world = world;
+        this.engine = world.getTrainEngine();
         this.passengerCompartment = new TrainPassengerCompartment();
 
         initializeTrainPosition(x, y, targetStation);
     }
 
     /**
-     * Updates the train's position, handles passenger boarding/unboarding, and manages
-     * movement between track segments.
+     * Handles passenger boarding/unboarding. The train has already been moved by the {@link TrainEngine}.
      *
      * @param deltaTime Time elapsed since last update
      */
     @Override
     public void update(double deltaTime) {
-        if (!moving) return;
-
-        currentSpeed = calculateSpeed(currentDistance);
-        updateTrainPosition(deltaTime);
+        x = engine.getX(slot);
+        y = engine.getY(slot);
+        if (track.isEmpty()) return;
 
-        updatePositionAndAngle();
         handlePassengerExchange();
     }
 
     /**
-     * Renders the train and its passengers at the current position and orientation.
+     * Writes the train and its passengers, interpolated between the previous and the current tick.
      *
-     * @param g2D Graphics context
+     * @param frame The frame to write to
      */
     @Override
-    public void draw(Graphics2D g2D) {
-        AffineTransform oldTransform = g2D.getTransform();
-        g2D.translate(x, y);
-        g2D.rotate(angle);
-
-        g2D.setColor(trainLine.getColor());
-        g2D.fillRect(-TRAIN_WIDTH/2, -TRAIN_HEIGHT/2, TRAIN_WIDTH, TRAIN_HEIGHT);
-        passengerCompartment.draw(g2D, 0, 0, angle);
-
-        g2D.setTransform(oldTransform);
+    public void snapshot(FrameSnapshot frame) {
+        double interpolation = world.getInterpolation();
+        int x = engine.getX(slot), previousX = engine.getPreviousX(slot);
+        int y = engine.getY(slot), previousY = engine.getPreviousY(slot);
+        double angle = engine.getAngle(slot), previousAngle = engine.getPreviousAngle(slot);
+        double drawX = previousX + (x - previousX) * interpolation;
+        double drawY = previousY + (y - previousY) * interpolation;
+        // Interpolate along the shorter arc, so the train doesn't spin when the angle wraps around
+        double drawAngle = previousAngle + Math.IEEEremainder(angle - previousAngle, 2 * Math.PI) * interpolation;
+
+        frame.addCommand(DrawCommand.TRAIN);
+        frame.putObject(trainLine.getColor());
+        frame.putDouble(drawX);
+        frame.putDouble(drawY);
+        frame.putDouble(drawAngle);
+        passengerCompartment.snapshot(frame, drawAngle);
     }
 
     @Override
@@ -115,312 +113,79 @@ public class Train extends AbstractGameObject {
      */
     private void initializeTrainPosition(int x, int y, Station targetStation) {
         PathPosition startPos = findPositionOnLine(x, y);
-        this.currentSegment = trainLine.getSegments().get(startPos.segmentIndex);
-        this.currentDistance = startPos.distance;
-        this.movingForward = shouldMoveForward(currentSegment, currentDistance, targetStation);
+        int segmentIndex = startPos.segmentIndex;
+        boolean movingForward = shouldMoveForward(segmentIndex, startPos.distance, targetStation);
 
-        initializePathMovement();
+        // Start at the station behind the train
+        double distance = movingForward ? track.getSegmentStart(segmentIndex) : track.getSegmentEnd(segmentIndex);
+        this.slot = engine.add(this, track, segmentIndex, distance, movingForward, x, y);
     }
 
     /**
      * Finds the closest position on the train line to the given coordinates.
      */
     private PathPosition findPositionOnLine(int x, int y) {
-        ArrayList<TrainLineSegment> segments = trainLine.getSegments();
-
-        for (int i = 0; i < segments.size(); i++) {
-            double distance = PathUtils.findDistanceOnPath(segments.get(i).getPath(), x, y);
+        // Only segments near the point can contain it; of these, take the first one along the line
+        PathPosition position = null;
+        List<TrainLineSegment> candidates = world.getSegmentCandidatesAt(x, y);
+        for (int i = 0; i < candidates.size(); i++) {
+            TrainLineSegment segment = candidates.get(i);
+            int index = track.indexOf(segment);
+            if (index < 0 || (position != null && index > position.segmentIndex)) {
+                continue;
+            }
+            double distance = PathUtils.findDistanceOnPath(segment.getPath(), x, y);
             if (distance >= 0) {
-                return new PathPosition(i, distance);
+                position = new PathPosition(index, distance);
             }
         }
-        return new PathPosition(0, 0);
-    }
-
-    /**
-     * Initializes path movement parameters including acceleration and braking distances.
-     */
-    private void initializePathMovement() {
-        Path2D path = currentSegment.getPath();
-        totalPathLength = PathUtils.calculatePathLength(path);
-        currentDistance = movingForward ? 0 : totalPathLength;
-
-        // Adjust acceleration and brake distances based on path length
-        if (IDEAL_ACCELERATION_DISTANCE + IDEAL_BRAKE_DISTANCE > totalPathLength) {
-            double ratio = IDEAL_ACCELERATION_DISTANCE / (IDEAL_ACCELERATION_DISTANCE + IDEAL_BRAKE_DISTANCE);
-            accelerationDistance = totalPathLength * ratio;
-            brakeDistance = totalPathLength * (1 - ratio);
-        } else {
-            accelerationDistance = IDEAL_ACCELERATION_DISTANCE;
-            brakeDistance = IDEAL_BRAKE_DISTANCE;
-        }
+        return position != null ? position : new PathPosition(0, 0);
     }
 
     /**
      * Determines whether the train should move forward based on target station position.
      */
-    private boolean shouldMoveForward(TrainLineSegment segment, double distance, Station targetStation) {
-        ArrayList<TrainLineSegment> segments = trainLine.getSegments();
+    private boolean shouldMoveForward(int segmentIndex, double segmentDistance, Station targetStation) {
+        TrainLineSegment segment = track.getSegment(segmentIndex);
 
         // If the target station is in the current segment
         if (segment.getStartStation() == targetStation) {
-            return distance > 0;
+            return segmentDistance > 0;
         }
         if (segment.getEndStation() == targetStation) {
-            return distance < PathUtils.calculatePathLength(segment.getPath());
+            return segmentDistance < track.getGeometry(segmentIndex).getLength();
         }
 
         // If not, check the position of the target segment
-        int currentIndex = segments.indexOf(segment);
-        for (int i = 0; i < segments.size(); i++) {
-            TrainLineSegment s = segments.get(i);
+        for (int i = 0; i < track.getSegmentCount(); i++) {
+            TrainLineSegment s = track.getSegment(i);
             if (s.getStartStation() == targetStation || s.getEndStation() == targetStation) {
-                return i > currentIndex;
+                return i > segmentIndex;
             }
         }
         return true;
     }
 
-    /**
-     * Calculates the current speed based on position, considering acceleration and braking phases.
-     */
-    private double calculateSpeed(double distance) {
-        if (movingForward) {
-            if (distance <= accelerationDistance) {
-                // Acceleration phase
-                double ratio = distance / accelerationDistance;
-                return MIN_SPEED + (MAX_SPEED - MIN_SPEED) * ratio;
-            } else if (distance >= totalPathLength - brakeDistance) {
-                // Deceleration phase
-                double ratio = (totalPathLength - distance) / brakeDistance;
-                return MIN_SPEED + (MAX_SPEED - MIN_SPEED) * ratio;
-            }
-        } else {
-            if (distance >= totalPathLength - accelerationDistance) {
-                // Acceleration phase (reverse direction)
-                double ratio = (totalPathLength - distance) / accelerationDistance;
-                return MIN_SPEED + (MAX_SPEED - MIN_SPEED) * ratio;
-            } else if (distance <= brakeDistance) {
-                // Deceleration phase (reverse direction)
-                double ratio = distance / brakeDistance;
-                return MIN_SPEED + (MAX_SPEED - MIN_SPEED) * ratio;
-            }
-        }
-        return MAX_SPEED;  // Constant maximum speed between phases
-    }
-
-    /**
-     * Updates the train's position along the track, handling segment transitions
-     * and direction changes.
-     */
-    private void updateTrainPosition(double deltaTime) {
-        double moveDistance = currentSpeed * deltaTime;
-        if (movingForward) {
-            handleForwardMovement(moveDistance);
-        } else {
-            handleBackwardMovement(moveDistance);
-        }
-    }
-
-    /**
-     * Handles forward movement along the track, including segment transitions.
-     */
-    private void handleForwardMovement(double moveDistance) {
-        double newDistance = currentDistance + moveDistance;
-        if (newDistance >= totalPathLength) {
-            TrainLineSegment nextSegment = trainLine.getNextSegment(currentSegment, true);
-            if (nextSegment == null) {
-                if (trainLine.isCircular()) {
-                    // Return to first segment for circular lines
-                    currentSegment = trainLine.getSegments().get(0);
-                    currentDistance = 0;
-                    initializePathMovement();
-                } else {
-                    // Reverse direction for regular lines
-                    currentDistance = totalPathLength;
-                    movingForward = false;
-                }
-            } else {
-                // Move to next segment
-                currentSegment = nextSegment;
-                currentDistance = 0;
-                initializePathMovement();
-            }
-        } else {
-            currentDistance = newDistance;
-        }
-    }
-
-    /**
-     * Handles backward movement along the track, including segment transitions.
-     */
-    private void handleBackwardMovement(double moveDistance) {
-        double newDistance = currentDistance - moveDistance;
-        if (newDistance <= 0) {
-            TrainLineSegment nextSegment = trainLine.getNextSegment(currentSegment, false);
-            if (nextSegment == null) {
-                if (trainLine.isCircular()) {
-                    // Move to last segment for circular lines
-                    currentSegment = trainLine.getSegments().get(trainLine.getSegments().size() - 1);
-                    currentDistance = PathUtils.calculatePathLength(currentSegment.getPath());
-                    initializePathMovement();
-                } else {
-                    // Reverse direction for regular lines
-                    currentDistance = 0;
-                    movingForward = true;
-                }
-            } else {
-                // Move to previous segment
-                currentSegment = nextSegment;
-                currentDistance = PathUtils.calculatePathLength(nextSegment.getPath());
-                initializePathMovement();
-            }
-        } else {
-            currentDistance = newDistance;
-        }
-    }
-
-    /**
-     * Updates the train's position and rotation angle based on the current path segment.
-     */
-    private void updatePositionAndAngle() {
-        Path2D path = currentSegment.getPath();
-        PathIterator pi = path.getPathIterator(null);
-        double[] coords = new double[6];
-        double remainingDistance = currentDistance;
-        double segmentStartX = 0, segmentStartY = 0;
-        boolean first = true;
-
-        while (!pi.isDone()) {
-            int type = pi.currentSegment(coords);
-
-            switch (type) {
-                case PathIterator.SEG_MOVETO:
-                    // Store initial coordinates for path traversal
-                    if (first) {
-                        segmentStartX = coords[0];
-                        segmentStartY = coords[1];
-                        first = false;
-                    }
-                    break;
-
-                case PathIterator.SEG_LINETO:
-                    double segmentLength = Math.sqrt(
-                            Math.pow(coords[0] - segmentStartX, 2) +
-                                    Math.pow(coords[1] - segmentStartY, 2)
-                    );
-
-                    if (remainingDistance <= segmentLength) {
-                        // Calculate position along the current line segment
-                        double ratio = remainingDistance / segmentLength;
-                        x = (int) (segmentStartX + (coords[0] - segmentStartX) * ratio);
-                        y = (int) (segmentStartY + (coords[1] - segmentStartY) * ratio);
-
-                        // Calculate rotation angle for the train based on segment direction
-                        double dx = coords[0] - segmentStartX;
-                        double dy = coords[1] - segmentStartY;
-                        angle = Math.atan2(dy, dx);
-                        if (!movingForward) {
-                            angle += Math.PI; // Rotate 180° when moving backwards
-                        }
-                        return;
-                    }
-
-                    remainingDistance -= segmentLength;
-                    segmentStartX = coords[0];
-                    segmentStartY = coords[1];
-                    break;
-
-                case PathIterator.SEG_QUADTO:
-                    // Handle curved path segments using quadratic Bézier curves
-                    double steps = 10;
-                    double lastQuadX = segmentStartX;
-                    double lastQuadY = segmentStartY;
-                    double[] curvePoints = new double[(int) (steps * 2)];
-
-                    // Pre-calculate points along the curve for smoother movement
-                    for (int i = 0; i <= steps; i++) {
-                        double t = i / steps;
-                        // Calculate point on quadratic Bézier curve using parametric equation
-                        double newX = Math.pow(1-t, 2) * segmentStartX +
-                                2 * (1-t) * t * coords[0] +
-                                Math.pow(t, 2) * coords[2];
-                        double newY = Math.pow(1-t, 2) * segmentStartY +
-                                2 * (1-t) * t * coords[1] +
-                                Math.pow(t, 2) * coords[3];
-
-                        // Store curve points for later angle calculation
-                        if (i < steps) {
-                            curvePoints[i*2] = newX;
-                            curvePoints[i*2+1] = newY;
-                        }
-
-                        if (i > 0) {
-                            double stepLength = Math.sqrt(
-                                    Math.pow(newX - lastQuadX, 2) +
-                                            Math.pow(newY - lastQuadY, 2)
-                            );
-
-                            if (remainingDistance <= stepLength) {
-                                // Interpolate position along current curve segment
-                                double ratio = remainingDistance / stepLength;
-                                x = (int) (lastQuadX + (newX - lastQuadX) * ratio);
-                                y = (int) (lastQuadY + (newY - lastQuadY) * ratio);
-
-                                // Calculate rotation angle using next point on curve for smooth transitions
-                                double nextX, nextY;
-                                if (i < steps) {
-                                    nextX = curvePoints[i*2];
-                                    nextY = curvePoints[i*2+1];
-                                } else {
-                                    nextX = coords[2];
-                                    nextY = coords[3];
-                                }
-                                angle = Math.atan2(nextY - lastQuadY, nextX - lastQuadX);
-                                if (!movingForward) {
-                                    angle += Math.PI; // Rotate 180° when moving backwards
-                                }
-                                return;
-                            }
-
-                            remainingDistance -= stepLength;
-                        }
-
-                        lastQuadX = newX;
-                        lastQuadY = newY;
-                    }
-
-                    segmentStartX = coords[2];
-                    segmentStartY = coords[3];
-                    break;
-            }
-
-            pi.next();
-        }
-    }
-
     /**
      * Handles passenger exchange at stations, including boarding and unboarding.
      */
     private void handlePassengerExchange() {
-        if (currentSegment == null) return;
-
         Station currentStation = findNearbyStation();
         if (currentStation == null) return;
 
-        // First unload passengers with matching shape
-        passengerCompartment.unloadPassengersWithShape(currentStation.getCurrentShapeType());
+        // First unload passengers with matching shape, and passengers that transfer to another line here
+        int delivered = passengerCompartment.unloadPassengersWithShape(currentStation.getCurrentShapeType());
+        world.addDeliveredPassengers(delivered);
+        RoutingTable routingTable = world.getRoutingTable();
+        long transferringShapes = routingTable.getAlightingShapes(currentStation, trainLine);
+        if (transferringShapes != 0) {
+            currentStation.receiveTransferringPassengers(passengerCompartment.getPassengers(), transferringShapes);
+        }
 
-        // Then board new passengers if there's space
+        // Then board new passengers if there's space, but only those for which this line is a best route
         if (!passengerCompartment.isFull()) {
-            ArrayList<Passenger> stationPassengers = currentStation.getPassengers();
-            ArrayList<Passenger> passengersToBoard = new ArrayList<>(stationPassengers);
-
-            for (Passenger passenger : passengersToBoard) {
-                if (passengerCompartment.addPassenger(passenger)) {
-                    stationPassengers.remove(passenger);
-                }
-            }
+            long boardingShapes = routingTable.getBoardingShapes(currentStation, trainLine);
+            currentStation.boardPassengers(passengerCompartment.getPassengers(), boardingShapes);
         }
     }
 
@@ -430,6 +195,7 @@ public class Train extends AbstractGameObject {
      */
     private Station findNearbyStation() {
         double stationProximity = 5.0;
+        TrainLineSegment currentSegment = engine.getSegment(slot);
 
         if (Math.abs(x - currentSegment.getStartStation().x) < stationProximity &&
                 Math.abs(y - currentSegment.getStartStation().y) < stationProximity) {
@@ -443,4 +209,22 @@ public class Train extends AbstractGameObject {
 
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks if the train carries no passengers, e.g. before it is taken off its line.
+     */
+    public boolean isEmpty() {
+        return passengerCompartment.getPassengers().isEmpty();
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Called by the engine when it moved the train's state to another slot.
+     */
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+}
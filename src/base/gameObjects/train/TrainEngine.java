@@ -0,0 +1,637 @@
+package base.gameObjects.train;
+
+import base.gameObjects.trainline.TrainLineSegment;
+import base.gameObjects.trainline.TrainLineTrack;
+import base.util.PhaseExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Moves all trains of the world. The kinematic state of every train is stored in parallel primitive arrays, indexed
+ * by the train's slot, and {@link Train} objects are only handles to their slot.
+ * <p>
+ * Each tick first advances all trains in one tight loop without branches, which the JIT can unroll and vectorize:
+ * the speed profile between two stations is {@code MIN + (MAX - MIN) * min(1, travelled / acceleration,
+ * remaining / brake)} and the train moves along its direction (+1 or -1). The rare trains that reached a station
+ * are then handled in a second pass, and finally the positions are sampled from the tracks. Trains only write their
+ * own slots, so large numbers of trains are split into ranges that are moved in parallel.
+ * <p>
+ * Lines can run several trains. The trains of each track are kept sorted by their position along the track's cycle
+ * (see {@link TrainLineTrack#getCycleLength()}). Trains rarely overtake each other, so re-sorting the nearly sorted
+ * order before each move costs O(K) per track.
+ * <p>
+ * Trains on the same track are kept apart by signalling: the cycle is divided into blocks of {@link #BLOCK_LENGTH},
+ * with one bitset of the blocks occupied by a train and one of the blocks reserved by a train. A train may only
+ * enter the next block after it reserved it, and a block can only be reserved while it is neither occupied nor
+ * reserved. Otherwise the train brakes for the end of its block like for a station. Every train checks a single
+ * block per tick, so signalling costs O(1) per train regardless of how busy the line is.
+ */
+public class TrainEngine {
+    public static final double BLOCK_LENGTH = 80;   // Minimum length, longer than a train, so a train occupies at most two blocks
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int PARALLEL_GRAIN = 1024;   // Trains per parallel chunk
+    private static final int ORDER_GRAIN = 64;        // Tracks per parallel chunk
+    private static final int MIN_BLOCKS_PER_TRAIN = 3;   // Two occupied blocks and one reserved block
+    private static final double HALF_TRAIN = Train.TRAIN_WIDTH / 2.0;
+    // Receives sampled positions; one per worker thread, so moving trains doesn't allocate
+    private static final ThreadLocal<double[]> SAMPLE_BUFFERS = ThreadLocal.withInitial(() -> new double[3]);
+    private static final double ACCELERATION_SHARE =
+            Train.IDEAL_ACCELERATION_DISTANCE / (Train.IDEAL_ACCELERATION_DISTANCE + Train.IDEAL_BRAKE_DISTANCE);
+    private static final double MIN_PHASE_DISTANCE = 1e-9;   // Avoids divisions by zero on zero-length segments
+
+    private int count;
+    private Train[] handles;
+    private TrainLineTrack[] tracks;
+
+    // Kinematic state
+    private double[] distances;          // Distance along the track
+    private double[] directions;         // +1 moving forward, -1 moving backward
+    private double[] segmentStarts;      // Distances of the stations before and after the train
+    private double[] segmentEnds;
+    private int[] segmentIndices;
+
+    // Remapping after line edits
+    private int[] trackVersions;
+    private TrainLineSegment[] segments;
+    private double[] segmentOffsets;
+
+    // Position and orientation of the current and previous tick
+    private int[] xs, ys, previousXs, previousYs;
+    private double[] angles, previousAngles;
+
+    // Order of the trains along each track and signalling
+    private final IdentityHashMap<TrainLineTrack, TrackOrder> trackOrders;
+    private final ArrayList<TrackOrder> trackOrderList;
+    private int[] tailBlocks;            // Blocks occupied by the back and the front of the train, -1 if none
+    private int[] frontBlocks;
+    private int[] reservedBlocks;        // Block reserved by the train, -1 if none
+    private double[] authorities;        // Distance the train may move until the end of its blocks
+
+    private final PhaseExecutor executor;
+
+    public TrainEngine(PhaseExecutor executor) {
+        this.executor = executor;
+        this.trackOrders = new IdentityHashMap<>();
+        this.trackOrderList = new ArrayList<>();
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Adds a train and returns its slot. The train starts at the given distance on the given segment of the track.
+     */
+    int add(Train handle, TrainLineTrack track, int segmentIndex, double distance, boolean movingForward, int x, int y) {
+        if (count == handles.length) {
+            allocate(handles.length * 2);
+        }
+
+        int slot = count++;
+        handles[slot] = handle;
+        tracks[slot] = track;
+        distances[slot] = distance;
+        directions[slot] = movingForward ? 1 : -1;
+        trackVersions[slot] = track.getVersion();
+        setSegment(slot, segmentIndex);
+        xs[slot] = previousXs[slot] = x;
+        ys[slot] = previousYs[slot] = y;
+        angles[slot] = previousAngles[slot] = 0;
+        tailBlocks[slot] = frontBlocks[slot] = reservedBlocks[slot] = -1;
+        authorities[slot] = Double.POSITIVE_INFINITY;
+
+        TrackOrder order = trackOrders.get(track);
+        if (order == null) {
+            order = new TrackOrder(track);
+            trackOrders.put(track, order);
+            trackOrderList.add(order);
+        }
+        order.insert(slot);
+        return slot;
+    }
+
+    /**
+     * Removes the train. The last train is moved into its slot.
+     */
+    public void remove(Train train) {
+        int slot = train.getSlot();
+        int last = --count;
+        TrackOrder order = trackOrders.get(tracks[slot]);
+        order.releaseBlocks(slot);
+        order.remove(slot);
+        if (order.isEmpty()) {
+            trackOrders.remove(tracks[slot]);
+            trackOrderList.remove(order);
+        }
+
+        if (slot != last) {
+            trackOrders.get(tracks[last]).replace(last, slot);
+            handles[slot] = handles[last];
+            tracks[slot] = tracks[last];
+            distances[slot] = distances[last];
+            directions[slot] = directions[last];
+            segmentStarts[slot] = segmentStarts[last];
+            segmentEnds[slot] = segmentEnds[last];
+            segmentIndices[slot] = segmentIndices[last];
+            trackVersions[slot] = trackVersions[last];
+            segments[slot] = segments[last];
+            segmentOffsets[slot] = segmentOffsets[last];
+            xs[slot] = xs[last];
+            ys[slot] = ys[last];
+            previousXs[slot] = previousXs[last];
+            previousYs[slot] = previousYs[last];
+            angles[slot] = angles[last];
+            previousAngles[slot] = previousAngles[last];
+            tailBlocks[slot] = tailBlocks[last];
+            frontBlocks[slot] = frontBlocks[last];
+            reservedBlocks[slot] = reservedBlocks[last];
+            authorities[slot] = authorities[last];
+            handles[slot].setSlot(slot);
+        }
+        handles[last] = null;
+        tracks[last] = null;
+        segments[last] = null;
+    }
+
+    /**
+     * Moves all trains. Each phase only reads the state of the previous one, and trains or tracks only write their
+     * own slots, so ranges of them are processed in parallel.
+     */
+    public void update(double deltaTime) {
+        executor.forRange(count, PARALLEL_GRAIN, this::prepare);
+        executor.forRange(trackOrderList.size(), ORDER_GRAIN, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                TrackOrder order = trackOrderList.get(i);
+                order.sort();
+                order.signal();
+            }
+        });
+        executor.forRange(count, PARALLEL_GRAIN, (from, to) -> move(from, to, deltaTime));
+    }
+
+    /**
+     * Remembers the state of the previous tick for interpolation, and remaps trains whose line was edited.
+     */
+    private void prepare(int from, int to) {
+        System.arraycopy(xs, from, previousXs, from, to - from);
+        System.arraycopy(ys, from, previousYs, from, to - from);
+        System.arraycopy(angles, from, previousAngles, from, to - from);
+        for (int i = from; i < to; i++) {
+            if (trackVersions[i] != tracks[i].getVersion()) {
+                remapToTrack(i);
+            }
+        }
+    }
+
+    private void move(int from, int to, double deltaTime) {
+        // Speed and movement of all trains, without branches
+        double speedRange = Train.MAX_SPEED - Train.MIN_SPEED;
+        for (int i = from; i < to; i++) {
+            double start = segmentStarts[i];
+            double length = segmentEnds[i] - start;
+            double direction = directions[i];
+            double travelled = 0.5 * length + direction * (distances[i] - start - 0.5 * length);
+            double remaining = length - travelled;
+            double accelerationDistance = Math.max(MIN_PHASE_DISTANCE,
+                    Math.min(Train.IDEAL_ACCELERATION_DISTANCE, length * ACCELERATION_SHARE));
+            double brakeDistance = Math.max(MIN_PHASE_DISTANCE,
+                    Math.min(Train.IDEAL_BRAKE_DISTANCE, length * (1 - ACCELERATION_SHARE)));
+            double ratio = Math.min(1, Math.min(travelled / accelerationDistance, remaining / brakeDistance));
+            // Brake for the end of the blocks the train may enter like for a station, and never pass it
+            double authority = authorities[i];
+            ratio = Math.max(0, Math.min(ratio, authority / Train.IDEAL_BRAKE_DISTANCE));
+            double speed = Train.MIN_SPEED + speedRange * ratio;
+            distances[i] += direction * Math.min(speed * deltaTime, Math.max(0, authority));
+        }
+
+        // Trains that reached a station stop there, and continue on the next segment with the next tick
+        for (int i = from; i < to; i++) {
+            if (tracks[i].isEmpty()) {
+                continue;
+            }
+            if (directions[i] > 0 ? distances[i] >= segmentEnds[i] : distances[i] <= segmentStarts[i]) {
+                handleStationReached(i);
+            }
+        }
+
+        double[] sample = SAMPLE_BUFFERS.get();
+        for (int i = from; i < to; i++) {
+            TrainLineTrack track = tracks[i];
+            if (track.isEmpty()) {
+                continue;
+            }
+            track.sample(segmentIndices[i], distances[i], sample);
+            xs[i] = (int) sample[0];
+            ys[i] = (int) sample[1];
+            angles[i] = directions[i] > 0 ? sample[2] : sample[2] + Math.PI;   // Rotate 180° when moving backwards
+            segmentOffsets[i] = distances[i] - segmentStarts[i];
+        }
+    }
+
+    /**
+     * Stops a train exactly at the station it reached. It reverses at the ends of regular lines
+     * and wraps around on circular lines.
+     */
+    private void handleStationReached(int i) {
+        TrainLineTrack track = tracks[i];
+        int segmentIndex = segmentIndices[i];
+        if (directions[i] > 0) {
+            if (segmentIndex + 1 < track.getSegmentCount()) {
+                distances[i] = segmentEnds[i];
+                setSegment(i, segmentIndex + 1);
+            } else if (track.isCircular()) {
+                distances[i] = 0;
+                setSegment(i, 0);
+            } else {
+                distances[i] = segmentEnds[i];
+                directions[i] = -1;
+            }
+        } else {
+            if (segmentIndex > 0) {
+                distances[i] = segmentStarts[i];
+                setSegment(i, segmentIndex - 1);
+            } else if (track.isCircular()) {
+                distances[i] = track.getLength();
+                setSegment(i, track.getSegmentCount() - 1);
+            } else {
+                distances[i] = segmentStarts[i];
+                directions[i] = 1;
+            }
+        }
+    }
+
+    /**
+     * Moves a train onto the rebuilt track after segments of its line were added or removed.
+     * If the segment the train was on still exists, the train keeps its position on it.
+     */
+    private void remapToTrack(int i) {
+        TrainLineTrack track = tracks[i];
+        trackVersions[i] = track.getVersion();
+        if (track.isEmpty()) {
+            return;
+        }
+
+        TrainLineSegment segment = segments[i];
+        int index = track.indexOf(segment);
+        if (index >= 0) {
+            distances[i] = Math.min(track.getSegmentStart(index) + segmentOffsets[i], track.getSegmentEnd(index));
+        } else if (segment.getEndStation() == track.getStop(0)) {
+            // The segment before the first station was removed -> continue from the new first station
+            index = 0;
+            distances[i] = 0;
+        } else if (segment.getStartStation() == track.getStop(track.getSegmentCount())) {
+            // The segment after the last station was removed -> continue from the new last station
+            index = track.getSegmentCount() - 1;
+            distances[i] = track.getLength();
+        } else {
+            index = 0;
+            distances[i] = 0;
+        }
+        setSegment(i, index);
+    }
+
+    private void setSegment(int i, int segmentIndex) {
+        TrainLineTrack track = tracks[i];
+        segmentIndices[i] = segmentIndex;
+        segmentStarts[i] = track.getSegmentStart(segmentIndex);
+        segmentEnds[i] = track.getSegmentEnd(segmentIndex);
+        segments[i] = track.getSegment(segmentIndex);
+        segmentOffsets[i] = distances[i] - segmentStarts[i];
+    }
+
+    private void allocate(int capacity) {
+        handles = handles == null ? new Train[capacity] : Arrays.copyOf(handles, capacity);
+        tracks = tracks == null ? new TrainLineTrack[capacity] : Arrays.copyOf(tracks, capacity);
+        segments = segments == null ? new TrainLineSegment[capacity] : Arrays.copyOf(segments, capacity);
+        distances = grow(distances, capacity);
+        directions = grow(directions, capacity);
+        segmentStarts = grow(segmentStarts, capacity);
+        segmentEnds = grow(segmentEnds, capacity);
+        segmentOffsets = grow(segmentOffsets, capacity);
+        angles = grow(angles, capacity);
+        authorities = grow(authorities, capacity);
+        tailBlocks = grow(tailBlocks, capacity);
+        frontBlocks = grow(frontBlocks, capacity);
+        reservedBlocks = grow(reservedBlocks, capacity);
+        previousAngles = grow(previousAngles, capacity);
+        segmentIndices = grow(segmentIndices, capacity);
+        trackVersions = grow(trackVersions, capacity);
+        xs = grow(xs, capacity);
+        ys = grow(ys, capacity);
+        previousXs = grow(previousXs, capacity);
+        previousYs = grow(previousYs, capacity);
+    }
+
+    private static double[] grow(double[] array, int capacity) {
+        return array == null ? new double[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    public int getTrainCount() {
+        return count;
+    }
+
+    /**
+     * Returns the distance from the given position, moving forward on the track, to the nearest train ahead or
+     * behind in the same direction, or infinity if there is none. Lines use it to space out new trains.
+     * Positions are those before the last move, and the search over the sorted trains costs O(log K).
+     */
+    public double getClearance(TrainLineTrack track, double distance) {
+        TrackOrder order = trackOrders.get(track);
+        return order != null ? order.getClearance(distance) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the lane of the train within the order of its track. Trains on circular lines can move in both
+     * directions without ever meeting, so each direction has its own lane.
+     */
+    private int getLane(int i) {
+        return tracks[i].isCircular() && directions[i] < 0 ? 1 : 0;
+    }
+
+    /**
+     * Returns the position of the train along its lane: the distance when moving forward, and the way back when
+     * moving backward.
+     */
+    private double getCyclePosition(int i) {
+        return directions[i] > 0 ? distances[i] : tracks[i].getCycleLength() - distances[i];
+    }
+
+    // Per-train state, read by the train handles
+
+    int getX(int slot) {
+        return xs[slot];
+    }
+
+    int getY(int slot) {
+        return ys[slot];
+    }
+
+    double getAngle(int slot) {
+        return angles[slot];
+    }
+
+    int getPreviousX(int slot) {
+        return previousXs[slot];
+    }
+
+    int getPreviousY(int slot) {
+        return previousYs[slot];
+    }
+
+    double getPreviousAngle(int slot) {
+        return previousAngles[slot];
+    }
+
+    TrainLineSegment getSegment(int slot) {
+        return segments[slot];
+    }
+
+    /**
+     * Slots of the trains of one track, sorted by lane and position along the lane, and the signal blocks of the
+     * track. Each lane has its own blocks, so the block {@code b} of lane {@code l} has the index
+     * {@code l * blocksPerLane + b}.
+     */
+    private final class TrackOrder {
+        private final TrainLineTrack track;
+        private int[] slots = new int[4];
+        private int[] lanes = new int[4];
+        private double[] positions = new double[4];
+        private int size;
+
+        private int blockVersion = -1;   // Version of the track the blocks were built for
+        private int blocksPerLane;
+        private long[] occupied;         // Bitsets over the blocks
+        private long[] reserved;
+
+        TrackOrder(TrainLineTrack track) {
+            this.track = track;
+        }
+
+        void insert(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                lanes = Arrays.copyOf(lanes, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            int lane = getLane(slot);
+            double position = getCyclePosition(slot);
+            int index = search(lane, position);
+            System.arraycopy(slots, index, slots, index + 1, size - index);
+            System.arraycopy(lanes, index, lanes, index + 1, size - index);
+            System.arraycopy(positions, index, positions, index + 1, size - index);
+            slots[index] = slot;
+            lanes[index] = lane;
+            positions[index] = position;
+            size++;
+        }
+
+        void remove(int slot) {
+            int index = indexOf(slot);
+            System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+            System.arraycopy(lanes, index + 1, lanes, index, size - index - 1);
+            System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+            size--;
+        }
+
+        void replace(int oldSlot, int newSlot) {
+            slots[indexOf(oldSlot)] = newSlot;
+        }
+
+        private int indexOf(int slot) {
+            for (int k = 0; k < size; k++) {
+                if (slots[k] == slot) {
+                    return k;
+                }
+            }
+            throw new IllegalStateException("Train " + slot + " isn't on the track");
+        }
+
+        /**
+         * Returns the index of the first train after the given lane and position.
+         */
+        private int search(int lane, double position) {
+            int low = 0, high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (lanes[middle] < lane || lanes[middle] == lane && positions[middle] <= position) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Updates the positions and restores the order with an insertion sort.
+         */
+        void sort() {
+            for (int k = 0; k < size; k++) {
+                lanes[k] = getLane(slots[k]);
+                positions[k] = getCyclePosition(slots[k]);
+            }
+            for (int k = 1; k < size; k++) {
+                int slot = slots[k], lane = lanes[k];
+                double position = positions[k];
+                int j = k - 1;
+                for (; j >= 0 && (lanes[j] > lane || lanes[j] == lane && positions[j] > position); j--) {
+                    slots[j + 1] = slots[j];
+                    lanes[j + 1] = lanes[j];
+                    positions[j + 1] = positions[j];
+                }
+                slots[j + 1] = slot;
+                lanes[j + 1] = lane;
+                positions[j + 1] = position;
+            }
+        }
+
+        /**
+         * Marks the blocks occupied by the trains, lets every train reserve the block ahead of it and stores how
+         * far it may move. Leaders reserve first. Lanes with fewer than {@link #MIN_BLOCKS_PER_TRAIN} blocks per
+         * train aren't signalled, so their trains can't block each other for good.
+         */
+        void signal() {
+            if (blockVersion != track.getVersion()) {
+                resetBlocks();
+            }
+
+            // Blocks of the previous tick are cleared first, as two trains can share a block
+            for (int k = 0; k < size; k++) {
+                clear(occupied, tailBlocks[slots[k]]);
+                clear(occupied, frontBlocks[slots[k]]);
+            }
+            double cycle = track.getCycleLength();
+            for (int k = 0; k < size; k++) {
+                int slot = slots[k];
+                tailBlocks[slot] = getBlock(lanes[k], positions[k] - HALF_TRAIN, cycle);
+                frontBlocks[slot] = getBlock(lanes[k], positions[k] + HALF_TRAIN, cycle);
+                set(occupied, tailBlocks[slot]);
+                set(occupied, frontBlocks[slot]);
+            }
+
+            for (int end = size, start; end > 0; end = start) {
+                start = end - 1;
+                while (start > 0 && lanes[start - 1] == lanes[end - 1]) {
+                    start--;
+                }
+                boolean signalled = blocksPerLane >= MIN_BLOCKS_PER_TRAIN * (end - start);
+                for (int k = end - 1; k >= start; k--) {
+                    int slot = slots[k];
+                    if (!signalled) {
+                        releaseReservation(slot);
+                        authorities[slot] = Double.POSITIVE_INFINITY;
+                        continue;
+                    }
+
+                    int front = frontBlocks[slot];
+                    int laneStart = lanes[k] * blocksPerLane;
+                    int next = laneStart + (front - laneStart + 1) % blocksPerLane;
+                    if (reservedBlocks[slot] != next) {
+                        releaseReservation(slot);   // Entered its reserved block, or the block is outdated
+                        if (!isSet(occupied, next) && !isSet(reserved, next)) {
+                            set(reserved, next);
+                            reservedBlocks[slot] = next;
+                        }
+                    }
+
+                    // Distance from the front of the train to the end of its block, and of the reserved one
+                    double frontPosition = floorMod(positions[k] + HALF_TRAIN, cycle);
+                    double authority = getBlockEnd(front - laneStart, cycle) - frontPosition;
+                    if (reservedBlocks[slot] == next) {
+                        authority += getBlockEnd(next - laneStart, cycle) - (next - laneStart) * BLOCK_LENGTH;
+                    }
+                    authorities[slot] = authority;
+                }
+            }
+        }
+
+        /**
+         * Frees the blocks of a train that leaves the track.
+         */
+        void releaseBlocks(int slot) {
+            if (blockVersion == track.getVersion()) {
+                clear(occupied, tailBlocks[slot]);
+                clear(occupied, frontBlocks[slot]);
+                releaseReservation(slot);
+            }
+            tailBlocks[slot] = frontBlocks[slot] = reservedBlocks[slot] = -1;
+        }
+
+        private void releaseReservation(int slot) {
+            clear(reserved, reservedBlocks[slot]);
+            reservedBlocks[slot] = -1;
+        }
+
+        /**
+         * Divides the lanes of the rebuilt track into blocks, all of them free.
+         */
+        private void resetBlocks() {
+            int laneCount = track.isCircular() ? 2 : 1;
+            blocksPerLane = Math.max(1, (int) (track.getCycleLength() / BLOCK_LENGTH));
+            occupied = new long[(laneCount * blocksPerLane + 63) >>> 6];
+            reserved = new long[occupied.length];
+            for (int k = 0; k < size; k++) {
+                tailBlocks[slots[k]] = frontBlocks[slots[k]] = reservedBlocks[slots[k]] = -1;
+            }
+            blockVersion = track.getVersion();
+        }
+
+        private int getBlock(int lane, double position, double cycle) {
+            int block = (int) (floorMod(position, cycle) / BLOCK_LENGTH);
+            return lane * blocksPerLane + Math.min(block, blocksPerLane - 1);
+        }
+
+        /**
+         * Returns the position of the end of the block within its lane. The last block is longer and ends with the
+         * cycle, so no block is shorter than {@link #BLOCK_LENGTH}.
+         */
+        private double getBlockEnd(int block, double cycle) {
+            return block == blocksPerLane - 1 ? cycle : (block + 1) * BLOCK_LENGTH;
+        }
+
+        /**
+         * Returns the distance from the position on the forward lane to the nearest train of that lane.
+         */
+        double getClearance(double position) {
+            int laneEnd = search(0, Double.POSITIVE_INFINITY);
+            if (laneEnd == 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double cycle = track.getCycleLength();
+            int index = search(0, position);
+            double ahead = index < laneEnd ? positions[index] : positions[0] + cycle;
+            double behind = index > 0 ? positions[index - 1] : positions[laneEnd - 1] - cycle;
+            return Math.min(ahead - position, position - behind);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    private static double floorMod(double position, double cycle) {
+        double result = position % cycle;
+        return result < 0 ? result + cycle : result;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & 1L << index) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Clears the bit, if the index isn't -1.
+     */
+    private static void clear(long[] bits, int index) {
+        if (index >= 0) {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+}
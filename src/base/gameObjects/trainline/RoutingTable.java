@@ -0,0 +1,177 @@
+package base.gameObjects.trainline;
+
+import base.gameObjects.shape.ShapeType;
+import base.gameObjects.station.Station;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Routes passengers through the network with as few transfers as possible. Trains look up which passengers board
+ * at a station, and which of their passengers get off there to transfer to another line.
+ * <p>
+ * For every shape, a breadth-first search over the lines, starting at all lines with a station of that shape at
+ * once, gives each line the number of transfers its passengers still need ({@code 0} if the line stops at a
+ * station of the shape). Lines are neighbours if they share a station. A station's best option is its line with
+ * the fewest transfers, so at every stop of every line the table knows per shape:
+ * <ul>
+ *  <li>board: the line is a best option of the station</li>
+ *  <li>alight: another line at the station needs fewer transfers, or the line can't reach the shape anymore</li>
+ * </ul>
+ * Both are stored as bitmasks over the ordinals of the {@link ShapeType}s, so an exchange costs a single lookup
+ * regardless of the number of lines and passengers. The table is rebuilt by the world when the network changed
+ * (stations, shapes or segments), which costs O(shapes * lines * stops).
+ */
+public class RoutingTable {
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final ShapeType[] SHAPE_TYPES = ShapeType.values();
+
+    private final IdentityHashMap<Station, Integer> stationIndices;
+    private final IdentityHashMap<TrainLine, Integer> lineIndices;
+    private long[][] boardingShapes;    // [line][station]: shapes that board the line at the station
+    private long[][] alightingShapes;   // [line][station]: shapes that leave the line at the station to transfer
+    private int version = -1;
+
+    public RoutingTable() {
+        this.stationIndices = new IdentityHashMap<>();
+        this.lineIndices = new IdentityHashMap<>();
+        this.boardingShapes = new long[0][];
+        this.alightingShapes = new long[0][];
+    }
+
+    /**
+     * Rebuilds the table for the given network.
+     * @param version Version of the network, see {@link #getVersion()}
+     */
+    public void rebuild(List<Station> stations, List<TrainLine> lines, int version) {
+        int stationCount = stations.size();
+        int lineCount = lines.size();
+        stationIndices.clear();
+        for (int i = 0; i < stationCount; i++) {
+            stationIndices.put(stations.get(i), i);
+        }
+        lineIndices.clear();
+        for (int l = 0; l < lineCount; l++) {
+            lineIndices.put(lines.get(l), l);
+        }
+
+        // Stops of every line and lines at every station
+        int[][] stops = new int[lineCount][];
+        ArrayList<ArrayList<Integer>> stationLines = new ArrayList<>(stationCount);
+        for (int i = 0; i < stationCount; i++) {
+            stationLines.add(new ArrayList<>(1));
+        }
+        for (int l = 0; l < lineCount; l++) {
+            stops[l] = findStops(lines.get(l));
+            for (int station : stops[l]) {
+                stationLines.get(station).add(l);
+            }
+        }
+
+        // Multi-source BFS over the lines per shape
+        int[][] transfers = new int[SHAPE_TYPES.length][lineCount];   // [shape][line]: transfers still needed
+        int[] queue = new int[lineCount];
+        for (ShapeType shapeType : SHAPE_TYPES) {
+            int[] shapeTransfers = transfers[shapeType.ordinal()];
+            int head = 0, tail = 0;
+            for (int l = 0; l < lineCount; l++) {
+                shapeTransfers[l] = UNREACHABLE;
+                for (int station : stops[l]) {
+                    if (stations.get(station).getCurrentShapeType() == shapeType) {
+                        shapeTransfers[l] = 0;
+                        queue[tail++] = l;
+                        break;
+                    }
+                }
+            }
+            while (head < tail) {
+                int line = queue[head++];
+                for (int station : stops[line]) {
+                    for (int neighbour : stationLines.get(station)) {
+                        if (shapeTransfers[neighbour] == UNREACHABLE) {
+                            shapeTransfers[neighbour] = shapeTransfers[line] + 1;
+                            queue[tail++] = neighbour;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Boarding and alighting decisions at every stop
+        boardingShapes = new long[lineCount][stationCount];
+        alightingShapes = new long[lineCount][stationCount];
+        for (int s = 0; s < SHAPE_TYPES.length; s++) {
+            int[] shapeTransfers = transfers[s];
+            for (int station = 0; station < stationCount; station++) {
+                List<Integer> linesAtStation = stationLines.get(station);
+                if (linesAtStation.isEmpty() || stations.get(station).getCurrentShapeType() == SHAPE_TYPES[s]) {
+                    continue;   // Passengers of the station's own shape have arrived
+                }
+
+                int fewestTransfers = UNREACHABLE;
+                for (int line : linesAtStation) {
+                    fewestTransfers = Math.min(fewestTransfers, shapeTransfers[line]);
+                }
+                for (int line : linesAtStation) {
+                    if (fewestTransfers != UNREACHABLE && shapeTransfers[line] == fewestTransfers) {
+                        boardingShapes[line][station] |= 1L << s;
+                    } else {
+                        // Includes lines that don't lead to the shape at all, e.g. after the network changed:
+                        // their passengers get off at the next stop instead of riding the line forever
+                        alightingShapes[line][station] |= 1L << s;
+                    }
+                }
+            }
+        }
+
+        this.version = version;
+    }
+
+    /**
+     * Returns the indices of the stations the line stops at.
+     */
+    private int[] findStops(TrainLine line) {
+        ArrayList<Integer> stops = new ArrayList<>();
+        for (TrainLineSegment segment : line.getSegments()) {
+            addStop(stops, segment.getStartStation());
+            addStop(stops, segment.getEndStation());
+        }
+        return stops.stream().distinct().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void addStop(ArrayList<Integer> stops, Station station) {
+        Integer index = stationIndices.get(station);
+        if (index != null) {
+            stops.add(index);
+        }
+    }
+
+    /**
+     * Returns the shapes of the passengers that should board the line at the station: those for which the line
+     * is a route with the fewest transfers.
+     */
+    public long getBoardingShapes(Station station, TrainLine line) {
+        Integer stationIndex = stationIndices.get(station);
+        Integer lineIndex = lineIndices.get(line);
+        return stationIndex != null && lineIndex != null ? boardingShapes[lineIndex][stationIndex] : 0;
+    }
+
+    /**
+     * Returns the shapes of the passengers that should leave the line at the station to transfer to a line with
+     * fewer transfers. Passengers that reached a station of their shape aren't included.
+     */
+    public long getAlightingShapes(Station station, TrainLine line) {
+        Integer stationIndex = stationIndices.get(station);
+        Integer lineIndex = lineIndices.get(line);
+        return stationIndex != null && lineIndex != null ? alightingShapes[lineIndex][stationIndex] : 0;
+    }
+
+    /**
+     * Returns the version of the network the table was built for.
+     */
+    public int getVersion() {
+        return version;
+    }
+}
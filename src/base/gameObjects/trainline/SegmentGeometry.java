@@ -0,0 +1,115 @@
+package base.gameObjects.trainline;
+
+import base.util.ArcLengthTable;
+import base.util.GeometryUtils;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Immutable, compiled geometry of a {@link TrainLineSegment}: its path, length and bounding box.
+ * <p>
+ * A segment compiles its geometry once after it changed, and drawing, train movement and picking all share the
+ * same object. Since it is never modified, it can be handed to the render thread as is. The version identifies
+ * the state of the segment it was compiled from, so holders of derived data can tell when it is outdated.
+ */
+public final class SegmentGeometry {
+    private final int version;
+    private final double startX, startY, endX, endY;
+    private final boolean hasBend;
+    private final double bendX, bendY;
+    private final Path2D path;
+    private final ArcLengthTable arcLengthTable;
+    private final Rectangle2D bounds;
+
+    /**
+     * Compiles the geometry of a straight segment, or of a segment with a rounded bend at (bendX, bendY).
+     */
+    SegmentGeometry(int version, double startX, double startY, double endX, double endY,
+                    boolean hasBend, double bendX, double bendY) {
+        this.version = version;
+        this.startX = startX;
+        this.startY = startY;
+        this.endX = endX;
+        this.endY = endY;
+        this.hasBend = hasBend;
+        this.bendX = bendX;
+        this.bendY = bendY;
+
+        Path2D path = new Path2D.Double();
+        path.moveTo(startX, startY);
+
+        if (hasBend) {
+            // Line with rounded bend: (start -> bendStart) + (bendStart -> bendEnd) + (bendEnd -> end)
+            double[] bendStart = GeometryUtils.shortenLine(startX, startY, bendX, bendY, (double) TrainLine.BEND_LENGTH / 2);
+            double[] bendEnd = GeometryUtils.shortenLine(endX, endY, bendX, bendY, (double) TrainLine.BEND_LENGTH / 2);
+
+            // Third segment not required if the bend is too close to the end point (line ends with curve)
+            boolean thirdSegmentNotRequired = Math.abs(endY - startY) + (double) TrainLine.LINE_THICKNESS /2 < (double) TrainLine.BEND_LENGTH / 2;
+
+            // First segment (straight line): start -> bendStart
+            path.lineTo(bendStart[0], bendStart[1]);
+
+            if (thirdSegmentNotRequired) {
+                // Last segment (rounded corner): bendStart -> end
+                path.quadTo(bendX, bendY, endX, endY);
+            } else {
+                // Second segment (rounded corner): bendStart -> bendEnd
+                path.quadTo(bendX, bendY, bendEnd[0], bendEnd[1]);
+                // Third segment (straight line): bendEnd -> end
+                path.lineTo(endX, endY);
+            }
+        } else {
+            // Single straight line without bend: start -> end
+            path.lineTo(endX, endY);
+        }
+
+        this.path = path;
+        this.arcLengthTable = ArcLengthTable.of(path);
+        this.bounds = calculateBounds();
+    }
+
+    /**
+     * The rounded bend lies within the triangle of start, bend and end point, so their bounding box
+     * (widened by half the line thickness) contains the whole segment.
+     */
+    private Rectangle2D calculateBounds() {
+        double minX = Math.min(startX, endX), maxX = Math.max(startX, endX);
+        double minY = Math.min(startY, endY), maxY = Math.max(startY, endY);
+        if (hasBend) {
+            minX = Math.min(minX, bendX);
+            maxX = Math.max(maxX, bendX);
+            minY = Math.min(minY, bendY);
+            maxY = Math.max(maxY, bendY);
+        }
+
+        double padding = TrainLine.LINE_THICKNESS / 2.0;
+        return new Rectangle2D.Double(minX - padding, minY - padding, maxX - minX + 2 * padding, maxY - minY + 2 * padding);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the path of the segment. The path is shared and must never be modified.
+     */
+    public Path2D getPath() {
+        return path;
+    }
+
+    public ArcLengthTable getArcLengthTable() {
+        return arcLengthTable;
+    }
+
+    public double getLength() {
+        return arcLengthTable.getLength();
+    }
+
+    /**
+     * Returns the bounding box of the segment including the line thickness. Must not be modified.
+     */
+    public Rectangle2D getBounds() {
+        return bounds;
+    }
+}
@@ -2,8 +2,11 @@ package base.gameObjects.trainline;
 
 import base.gameObjects.AbstractGameObject;
 import base.gameObjects.train.Train;
+import base.gameObjects.train.TrainEngine;
 import base.gameObjects.station.Station;
-import base.main.GamePanel;
+import base.main.World;
+import base.rendering.Drawable;
+import base.rendering.FrameSnapshot;
 
 import java.awt.*;
 import java.util.ArrayList;
@@ -13,43 +16,61 @@ public class TrainLine extends AbstractGameObject {
     public static final int LINE_THICKNESS = 15;
     public static final int BEND_ANGLE = 45;
     public static final int BEND_LENGTH = 10;
+    public static final Color[] PALETTE = {
+            Color.red,
+            new Color(0, 102, 204),     // Blue
+            new Color(0, 153, 76),      // Green
+            new Color(255, 153, 0),     // Orange
+            new Color(153, 51, 204),    // Purple
+            new Color(0, 176, 176),     // Teal
+            new Color(153, 102, 51),    // Brown
+            new Color(255, 102, 178),   // Pink
+    };
+    public static final int MAX_TRAINS = 6;
+    private static final int PASSENGERS_PER_TRAIN = 6;   // Waiting passengers that call for one more train
+    private static final double MIN_HEADWAY = 3 * TrainEngine.BLOCK_LENGTH;   // Blocks a train needs to run
+    private static final double DEMAND_INTERVAL = 1.0;   // Seconds between two evaluations of the demand
 
     private ArrayList<TrainLineSegment> segments;
     private ArrayList<Station> stations;
     private TrainLineSegment stationSelector;
     private ArrayList<Train> trains;
-    private final GamePanel gamePanel;
+    private int targetTrainCount = 1;
+    private double demandTimer;
+    private final TrainLineTrack track;
+    private final World world;
     private final Color lineColor;
+    private final Drawable selectorLayer = this::snapshotSelector;  // The selector follows the mouse, so it isn't static
 
-    public TrainLine(Color color, GamePanel gamepanel) {
-        super(GamePanel.TRAIN_LINE_Z_INDEX, gamepanel);
+    public TrainLine(Color color, World world) {
+        super(World.TRAIN_LINE_Z_INDEX, world);
 
         this.setPressable(true);
         this.lineColor = color;
-        this.gamePanel = gamepanel;
+        this.world = world;
         this.segments = new ArrayList<>();
         this.stations = new ArrayList<>();
         this.trains = new ArrayList<>();
+        this.track = new TrainLineTrack();
     }
 
     @Override
     public void update(double deltaTime) {
-        // Add a train if the line has at least one segment and no trains
-        if (!gamePanel.isInBuildMode() && !segments.isEmpty() && trains.isEmpty() && !isLeftPressed()) {
-            TrainLineSegment firstSegment = segments.getFirst();
-            addTrain(new Train(firstSegment.getStartStation().x, firstSegment.getStartStation().y, this, firstSegment.getEndStation(), gamePanel));
+        // Run trains if the line has at least one segment
+        if (!world.isInBuildMode() && !segments.isEmpty() && !isLeftPressed()) {
+            updateTrains(deltaTime);
         }
         // Remove all trains if the line has no segments
         if (segments.isEmpty() && !trains.isEmpty()) {
             removeAllTrains();
         }
 
-        // Make stations selectable only in Play Mode
-        if (!gamePanel.isInBuildMode()) {
+        // Make stations selectable only in Play Mode, and only for the line selected in the palette
+        if (!world.isInBuildMode() && world.getActiveTrainLine() == this) {
             // Check if a station is pressed -> yes: mark station as selected and create a station selector
             ArrayList<Station> stationsToCheck = new ArrayList<>(stations);
             if (stationsToCheck.isEmpty()) {
-                stationsToCheck = gamePanel.getStations();
+                stationsToCheck = world.getStations();
             }
 
             for (Station station : stationsToCheck) {
@@ -66,7 +87,7 @@ public class TrainLine extends AbstractGameObject {
 
                     station.setSelected(true, lineColor);
                     if (stationSelector == null) {
-                        stationSelector = new TrainLineSegment(station, this, gamePanel);
+                        stationSelector = new TrainLineSegment(station, this, world);
                         if (!stations.contains(station)) {
                             stations.add(station);
                         }
@@ -79,14 +100,58 @@ public class TrainLine extends AbstractGameObject {
         }
     }
 
+    /**
+     * Adjusts the number of trains to the demand. New trains leave the first station once the nearest train is half
+     * a headway away, so the trains spread out along the line, and surplus trains leave the line once they are empty.
+     */
+    private void updateTrains(double deltaTime) {
+        demandTimer -= deltaTime;
+        if (demandTimer <= 0) {
+            demandTimer = DEMAND_INTERVAL;
+            targetTrainCount = computeTargetTrainCount();
+        }
+
+        double headway = track.getCycleLength() / targetTrainCount;
+        if (trains.size() < targetTrainCount && world.getTrainEngine().getClearance(track, 0) >= 0.5 * headway) {
+            TrainLineSegment firstSegment = segments.getFirst();
+            addTrain(new Train(firstSegment.getStartStation().x, firstSegment.getStartStation().y, this, firstSegment.getEndStation(), world));
+        } else if (trains.size() > targetTrainCount) {
+            for (Train train : trains) {
+                if (train.isEmpty()) {
+                    removeTrain(train);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of trains the line should run: one, plus one for every {@link #PASSENGERS_PER_TRAIN}
+     * passengers waiting for the line at its stations, as long as the trains can keep a minimum headway.
+     */
+    private int computeTargetTrainCount() {
+        RoutingTable routingTable = world.getRoutingTable();
+        int stopCount = track.isCircular() ? track.getSegmentCount() : track.getSegmentCount() + 1;
+        int waiting = 0;
+        for (int i = 0; i < stopCount; i++) {
+            Station station = track.getStop(i);
+            waiting += station.getPassengers().count(routingTable.getBoardingShapes(station, this));
+        }
+
+        int maxTrains = (int) Math.max(1, Math.min(MAX_TRAINS, track.getCycleLength() / MIN_HEADWAY));
+        return Math.min(maxTrains, 1 + waiting / PASSENGERS_PER_TRAIN);
+    }
+
     @Override
-    public void draw(Graphics2D g2D) {
-        segments.forEach((segment) -> {
-            segment.draw(g2D);
-        });
+    public void snapshot(FrameSnapshot frame) {
+        for (TrainLineSegment segment : segments) {
+            segment.snapshot(frame);
+        }
+    }
 
+    private void snapshotSelector(FrameSnapshot frame) {
         if (stationSelector != null) {
-            stationSelector.draw(g2D);
+            stationSelector.snapshot(frame);
         }
     }
 
@@ -124,10 +189,27 @@ public class TrainLine extends AbstractGameObject {
                 stations.addLast(newStation);
             }
 
+            world.indexSegment(stationSelector);
             stationSelector = null;
+            onSegmentsChanged();
         }
     }
 
+    /**
+     * Appends a station to the end of the line without using the station selector.
+     * Used to build lines programmatically, e.g. in headless simulations.
+     * @param station The station to append
+     */
+    public void addStation(Station station) {
+        if (!stations.isEmpty()) {
+            TrainLineSegment segment = new TrainLineSegment(stations.getLast(), station, this, world);
+            segments.addLast(segment);
+            world.indexSegment(segment);
+            onSegmentsChanged();
+        }
+        stations.addLast(station);
+    }
+
     public void removeStationWithSelector(Station station) {
         if (station == stationSelector.getStartStation()) {
             stationSelector.getStartStation().setLeftPressed(false);
@@ -135,7 +217,7 @@ public class TrainLine extends AbstractGameObject {
 
             // Find segment that contains the station: Either first or last segment
             if (segments.getFirst().getStartStation() == station) {
-                segments.removeFirst();
+                world.unindexSegment(segments.removeFirst());
                 stations.removeFirst();
 
                 // Select the new first station of the line
@@ -144,7 +226,7 @@ public class TrainLine extends AbstractGameObject {
                     stations.getFirst().setSelected(true, lineColor);
                 }
             } else {
-                segments.removeLast();
+                world.unindexSegment(segments.removeLast());
                 stations.removeLast();
 
                 // Select the new last station of the line
@@ -155,21 +237,35 @@ public class TrainLine extends AbstractGameObject {
             }
 
             stationSelector = null;
+            onSegmentsChanged();
         }
     }
 
+    /**
+     * Rebuilds the track, redraws the static layers and updates the routing and travel times after segments were
+     * added or removed.
+     */
+    private void onSegmentsChanged() {
+        track.rebuild(segments, isCircular());
+        world.invalidateStaticLayers();
+        world.invalidateNetwork();
+        world.invalidateTravelTimes();
+    }
+
     public void addTrain(Train train) {
         trains.add(train);
-        gamePanel.getTrains().add(train);
+        world.addTrain(train);
     }
 
     public void removeTrain(Train train) {
         trains.remove(train);
-        gamePanel.getTrains().remove(train);
+        world.removeTrain(train);
     }
 
     public void removeAllTrains() {
-        gamePanel.getTrains().removeAll(trains);
+        for (Train train : trains) {
+            world.removeTrain(train);
+        }
         trains.clear();
     }
 
@@ -184,7 +280,7 @@ public class TrainLine extends AbstractGameObject {
     @Override
     public void setLeftPressed(boolean pressed) {
         // Allow line interaction only in Play Mode
-        if (!gamePanel.isInBuildMode()) {
+        if (!world.isInBuildMode()) {
             super.setLeftPressed(pressed);
             if (pressed) {
                 for (Station station : stations) {
@@ -226,65 +322,17 @@ public class TrainLine extends AbstractGameObject {
     }
 
     /**
-     * Returns the current segment based on the index and direction of movement.
+     * Returns the continuous track over all segments, which trains move along.
      */
-    public TrainLineSegment getCurrentSegment(int currentSegmentIndex) {
-        return segments.get(currentSegmentIndex);
-    }
-
-    /**
-     * Determines the next segment based on the current index and direction of movement.
-     * Returns null if the end of the line is reached.
-     */
-    public TrainLineSegment getNextSegment(TrainLineSegment currentSegment, boolean movingForward) {
-        int currentIndex = segments.indexOf(currentSegment);
-
-        // If currentSegment was removed -> try to find the next segment that was connected to the removed segment
-        if (currentIndex == -1) {
-            if (stations.contains(currentSegment.getStartStation()) || stations.contains(currentSegment.getEndStation())) {
-                // A segment is connected to the start or end of the removed segment
-                for (TrainLineSegment segment : segments) {
-                    if (segment.getStartStation() == currentSegment.getEndStation()) {
-                        // Found segment connected to the end of the removed segment
-                        if (movingForward) {
-                            // Train is moving toward end station -> return found segment
-                            return segment;
-                        }
-                        // Train is moving toward start station -> no next segment = change direction
-                        return null;
-                    }
-                    else if (segment.getEndStation() == currentSegment.getStartStation()) {
-                        // Found segment connected to the start of the removed segment
-                        if (movingForward) {
-                            // Train is moving toward end station -> no next segment = change direction
-                            return null;
-                        }
-                        // Train is moving toward start station -> return found segment
-                        return segment;
-                    }
-                }
-            }
-            else {
-                // No segment was connected to the removed segment -> let train circle around (currently no better solution)
-                return null;
-            }
-        }
-
-        int nextIndex = movingForward ? currentIndex + 1 : currentIndex - 1;
-        if (nextIndex < 0 || nextIndex >= segments.size()) {
-            return null;
-        }
-        return segments.get(nextIndex);
-    }
-
-    /**
-     * Returns the index of a segment in the list.
-     */
-    public int getSegmentIndex(TrainLineSegment segment) {
-        return segments.indexOf(segment);
+    public TrainLineTrack getTrack() {
+        return track;
     }
 
     public Color getColor() {
         return lineColor;
     }
+
+    public Drawable getSelectorLayer() {
+        return selectorLayer;
+    }
 }
@@ -2,37 +2,41 @@ package base.gameObjects.trainline;
 
 import base.gameObjects.AbstractGameObject;
 import base.gameObjects.station.Station;
-import base.main.GamePanel;
+import base.main.World;
+import base.rendering.FrameSnapshot;
+import base.rendering.FrameSnapshot.DrawCommand;
+import base.util.ArcLengthTable;
 import base.util.GeometryUtils;
 
 import java.awt.*;
-import java.awt.geom.GeneralPath;
 import java.awt.geom.Path2D;
-import java.util.ArrayList;
+import java.awt.geom.Rectangle2D;
 
 public class TrainLineSegment extends AbstractGameObject {
     private Station startStation, endStation;
     private final TrainLine trainLine;
-    private final GamePanel gamePanel;
+    private final World world;
     private double startX, startY;
     private double endX, endY;
     private double bendX, bendY;
     private double previousAngle1 = -1;
     public boolean hasBend, bendOrientationClockwise = false;
     private boolean hasLeftStation = false;
+    private int version = 0;                 // Incremented whenever the geometry changes
+    private SegmentGeometry geometry;        // Compiled on demand for the current version
 
     /**
      * Create a new TrainLineSegment with a start station and an end station.
      * @param startStation the start station
      * @param endStation the end station
      * @param trainLine the train line that this segment is part of
-     * @param gamePanel the game panel
+     * @param world the world
      */
-    public TrainLineSegment(Station startStation, Station endStation, TrainLine trainLine, GamePanel gamePanel) {
-        super(GamePanel.TRAIN_LINE_Z_INDEX, gamePanel);
+    public TrainLineSegment(Station startStation, Station endStation, TrainLine trainLine, World world) {
+        super(World.TRAIN_LINE_Z_INDEX, world);
 
         this.trainLine = trainLine;
-        this.gamePanel = gamePanel;
+        this.world = world;
         setStartStation(startStation);
         setEndStation(endStation);
     }
@@ -42,10 +46,10 @@ public class TrainLineSegment extends AbstractGameObject {
      * a segment that follows the mouse and is used to select new stations for the train line (`trainLine`).
      * @param startStation the station where the selector starts
      * @param trainLine the train line that the selector is used for
-     * @param gamePanel the game panel
+     * @param world the world
      */
-    public TrainLineSegment(Station startStation, TrainLine trainLine, GamePanel gamePanel) {
-        this(startStation, null, trainLine, gamePanel);
+    public TrainLineSegment(Station startStation, TrainLine trainLine, World world) {
+        this(startStation, null, trainLine, world);
     }
 
     @Override
@@ -55,73 +59,36 @@ public class TrainLineSegment extends AbstractGameObject {
             Point mousePosition = getMousePosition();
             setEndPoint(mousePosition.getX(), mousePosition.getY());
             // Check if mouse touches a station
-            ArrayList<Station> stations = gamePanel.getStations();
-            boolean isTouchingStation = false;
-            for (Station station : stations) {
-                if (station.containsPoint((int) mousePosition.getX(), (int) mousePosition.getY())) {
-                    isTouchingStation = true;
-                    if (hasLeftStation) {
-                        // If touched station is not part of this line -> add
-                        if (station != startStation && !trainLine.getStations().contains(station)) {
-                            trainLine.addStationWithSelector(station);
-                        }
-                        // If touched station is the first station of this line -> add (allow ring lines)
-                        else if (station != startStation && station == trainLine.getFirstStation()) {
-                            trainLine.addStationWithSelector(station);
-                            trainLine.setLeftPressed(false);
-                        }
-                        // If touched station is part of this line, and it's not the first station -> remove
-                        else if (station == startStation && trainLine.getStations().size() > 1) {
-                            trainLine.removeStationWithSelector(station);
-                        }
-                        hasLeftStation = false;
+            Station station = world.getStationAt(mousePosition.x, mousePosition.y);
+            if (station != null) {
+                if (hasLeftStation) {
+                    // If touched station is not part of this line -> add
+                    if (station != startStation && !trainLine.getStations().contains(station)) {
+                        trainLine.addStationWithSelector(station);
                     }
-                    break;
+                    // If touched station is the first station of this line -> add (allow ring lines)
+                    else if (station != startStation && station == trainLine.getFirstStation()) {
+                        trainLine.addStationWithSelector(station);
+                        trainLine.setLeftPressed(false);
+                    }
+                    // If touched station is part of this line, and it's not the first station -> remove
+                    else if (station == startStation && trainLine.getStations().size() > 1) {
+                        trainLine.removeStationWithSelector(station);
+                    }
+                    hasLeftStation = false;
                 }
-            }
-            if (!isTouchingStation) {
+            } else {
                 hasLeftStation = true;
             }
         }
     }
 
     @Override
-    public void draw(Graphics2D g2D) {
-        g2D.setStroke(new BasicStroke(TrainLine.LINE_THICKNESS, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-        g2D.setColor(trainLine.getColor());
-        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        Path2D path = new GeneralPath();
-        path.moveTo(startX, startY);
-
-        if (hasBend) {
-            // Draw line with rounded bend: (start -> bendStart) + (bendStart -> bendEnd) + (bendEnd -> end)
-
-            double[] bendStart = GeometryUtils.shortenLine(startX, startY, bendX, bendY, (double) TrainLine.BEND_LENGTH / 2);
-            double[] bendEnd = GeometryUtils.shortenLine(endX, endY, bendX, bendY, (double) TrainLine.BEND_LENGTH / 2);
-
-            // Draw first segment (straight line): start -> bendStart
-            path.lineTo(bendStart[0], bendStart[1]);
-
-            // Third segment not required if the bend is too close to the end point (line ends with curve)
-            boolean thirdSegmentNotRequired = Math.abs(endY - startY) + (double) TrainLine.LINE_THICKNESS /2 < (double) TrainLine.BEND_LENGTH / 2;
-
-            if (thirdSegmentNotRequired){
-                // Draw last segment (rounded corner): bendStart -> end
-                path.quadTo(bendX, bendY, endX, endY);
-            } else {
-                // Draw second segment (rounded corner): bendStart -> bendEnd
-                path.quadTo(bendX, bendY, bendEnd[0], bendEnd[1]);
-                // Draw third segment (straight line): bendEnd -> end
-                path.lineTo(endX, endY);
-            }
-        } else {
-            // Draw single straight line without bend: start -> end
-            path.lineTo(endX, endY);
-        }
-
-        // Draw the path
-        g2D.draw(path);
+    public void snapshot(FrameSnapshot frame) {
+        // The compiled path is never modified, so it can be shared with the render thread
+        frame.addCommand(DrawCommand.TRAIN_LINE_SEGMENT);
+        frame.putObject(trainLine.getColor());
+        frame.putObject(getPath());
     }
 
     @Override
@@ -136,6 +103,8 @@ public class TrainLineSegment extends AbstractGameObject {
     }
 
     private void calculateBend() {
+        version++;
+
         // Calculate angle from start to mouse position
         double directAngleRad = Math.atan2(endY - startY, endX - startX);
         double directAngle = Math.toDegrees(directAngleRad);
@@ -207,6 +176,10 @@ public class TrainLineSegment extends AbstractGameObject {
         }
     }
 
+    public TrainLine getTrainLine() {
+        return trainLine;
+    }
+
     public Station getStartStation() {
         return startStation;
     }
@@ -215,6 +188,7 @@ public class TrainLineSegment extends AbstractGameObject {
         this.startStation = startStation;
         this.startX = startStation.x;
         this.startY = startStation.y;
+        this.version++;
     }
 
     public Station getEndStation() {
@@ -229,32 +203,34 @@ public class TrainLineSegment extends AbstractGameObject {
         else {
             this.endX = startX;
             this.endY = startY;
+            this.version++;
         }
     }
 
-    public Path2D getPath() {
-        Path2D path = new Path2D.Double();
-        path.moveTo(startX, startY);
-
-        if (hasBend) {
-            // Calculate bend points like in draw method
-            double[] bendStart = GeometryUtils.shortenLine(startX, startY, bendX, bendY, (double) TrainLine.BEND_LENGTH / 2);
-            double[] bendEnd = GeometryUtils.shortenLine(endX, endY, bendX, bendY, (double) TrainLine.BEND_LENGTH / 2);
+    /**
+     * Returns the compiled geometry of the segment. It is compiled once after the segment changed and shared by
+     * drawing, train movement and picking.
+     */
+    public SegmentGeometry getGeometry() {
+        if (geometry == null || geometry.getVersion() != version) {
+            geometry = new SegmentGeometry(version, startX, startY, endX, endY, hasBend, bendX, bendY);
+        }
+        return geometry;
+    }
 
-            boolean thirdSegmentNotRequired = Math.abs(endY - startY) + (double) TrainLine.LINE_THICKNESS /2 < (double) TrainLine.BEND_LENGTH / 2;
+    public ArcLengthTable getArcLengthTable() {
+        return getGeometry().getArcLengthTable();
+    }
 
-            path.lineTo(bendStart[0], bendStart[1]);
+    public double getLength() {
+        return getGeometry().getLength();
+    }
 
-            if (thirdSegmentNotRequired) {
-                path.quadTo(bendX, bendY, endX, endY);
-            } else {
-                path.quadTo(bendX, bendY, bendEnd[0], bendEnd[1]);
-                path.lineTo(endX, endY);
-            }
-        } else {
-            path.lineTo(endX, endY);
-        }
+    public Rectangle2D getBounds() {
+        return getGeometry().getBounds();
+    }
 
-        return path;
+    public Path2D getPath() {
+        return getGeometry().getPath();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,128 @@
+package base.gameObjects.trainline;
+
+import base.gameObjects.station.Station;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Continuous track over all segments of a {@link TrainLine}, parameterized by the distance from the line's first
+ * station. Stations are stops at the offsets between the segments, so segment i runs from stop i to stop i+1.
+ * <p>
+ * Trains only carry a single distance along the track and the index of their segment, which they step to the
+ * next one at the stops, so moving along a long line costs the same per tick as along a short one. The track is
+ * rebuilt by its line whenever segments are added or removed; the version tells trains to remap their position.
+ */
+public class TrainLineTrack {
+    private final ArrayList<TrainLineSegment> segments;
+    private final IdentityHashMap<TrainLineSegment, Integer> segmentIndices;
+    private SegmentGeometry[] geometries;
+    private double[] stopOffsets;       // Distance of stop i from the start; the last one is the track length
+    private boolean circular;
+    private int version;
+
+    public TrainLineTrack() {
+        this.segments = new ArrayList<>();
+        this.segmentIndices = new IdentityHashMap<>();
+        this.geometries = new SegmentGeometry[0];
+        this.stopOffsets = new double[] {0};
+    }
+
+    /**
+     * Rebuilds the track from the segments of the line, in order. Called by the line after every edit.
+     */
+    void rebuild(List<TrainLineSegment> lineSegments, boolean circular) {
+        segments.clear();
+        segments.addAll(lineSegments);
+        segmentIndices.clear();
+
+        int count = segments.size();
+        if (geometries.length != count) {
+            geometries = new SegmentGeometry[count];
+            stopOffsets = new double[count + 1];
+        }
+
+        stopOffsets[0] = 0;
+        for (int i = 0; i < count; i++) {
+            TrainLineSegment segment = segments.get(i);
+            segmentIndices.put(segment, i);
+            geometries[i] = segment.getGeometry();
+            stopOffsets[i + 1] = stopOffsets[i] + geometries[i].getLength();
+        }
+
+        this.circular = circular;
+        version++;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    public boolean isCircular() {
+        return circular;
+    }
+
+    public double getLength() {
+        return stopOffsets[segments.size()];
+    }
+
+    /**
+     * Returns the distance a train travels until it is back at the same position in the same direction:
+     * the length of circular lines, and there and back again on regular lines.
+     */
+    public double getCycleLength() {
+        return circular ? getLength() : 2 * getLength();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public TrainLineSegment getSegment(int index) {
+        return segments.get(index);
+    }
+
+    public SegmentGeometry getGeometry(int index) {
+        return geometries[index];
+    }
+
+    /**
+     * Returns the index of the segment on this track, or -1 if it isn't part of the track (anymore).
+     */
+    public int indexOf(TrainLineSegment segment) {
+        Integer index = segmentIndices.get(segment);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the distance of the start of the segment with the given index, i.e. the offset of its start station.
+     */
+    public double getSegmentStart(int index) {
+        return stopOffsets[index];
+    }
+
+    public double getSegmentEnd(int index) {
+        return stopOffsets[index + 1];
+    }
+
+    /**
+     * Returns the station at the start of the segment with the given index, or at the end of the last segment if
+     * the index equals the segment count.
+     */
+    public Station getStop(int index) {
+        return index < segments.size() ? segments.get(index).getStartStation() : segments.getLast().getEndStation();
+    }
+
+    /**
+     * Finds the position and direction at a distance along the track.
+     * @param result Receives the x coordinate, y coordinate and direction angle (in radians) at {@code [0..2]}
+     */
+    public void sample(int segmentIndex, double distance, double[] result) {
+        geometries[segmentIndex].getArcLengthTable().sample(distance - stopOffsets[segmentIndex], result);
+    }
+}
@@ -0,0 +1,160 @@
+package base.gameObjects.trainline;
+
+import base.gameObjects.station.Station;
+import base.gameObjects.train.Train;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Travel times between stations, derived from the speed profile of the trains instead of simulating them.
+ * <p>
+ * Between two stops a train accelerates from {@link Train#MIN_SPEED} to {@link Train#MAX_SPEED}, cruises and brakes
+ * again, with the phases shortened on short segments exactly like in the train engine. The speed grows linearly
+ * with the distance in the acceleration and brake phases, so the time of a segment is the closed form
+ * {@code (acceleration + brake) / (MAX - MIN) * ln(MAX / MIN) + cruise / MAX}. Per line, the table keeps the time
+ * from the first stop to every stop, so every entry of the line's travel time matrix is a single difference.
+ * <p>
+ * Tables are immutable. The world computes them in the background after lines were edited and publishes them when
+ * they are done, so they may lag behind the network for a moment. The times of lines that weren't edited since the
+ * previous table are taken over from it.
+ */
+public class TravelTimeTable {
+    public static final TravelTimeTable EMPTY = new TravelTimeTable(-1, new IdentityHashMap<>());
+
+    private static final double ACCELERATION_SHARE =
+            Train.IDEAL_ACCELERATION_DISTANCE / (Train.IDEAL_ACCELERATION_DISTANCE + Train.IDEAL_BRAKE_DISTANCE);
+    private static final double PHASE_TIME_PER_DISTANCE =
+            Math.log(Train.MAX_SPEED / Train.MIN_SPEED) / (Train.MAX_SPEED - Train.MIN_SPEED);
+
+    /**
+     * Stops and segment lengths of a line, copied on the simulation thread, so the table can be computed on
+     * another thread while the line is edited. The arrays are null if the line didn't change since the base table.
+     */
+    public record LineSnapshot(TrainLine line, int trackVersion, boolean circular, Station[] stops,
+                               double[] segmentLengths) {}
+
+    /**
+     * Travel times along one line.
+     */
+    private record LineTimes(int trackVersion, boolean circular, Station[] stops,
+                             IdentityHashMap<Station, Integer> stopIndices, double[] stopTimes) {
+
+        double getCycleTime() {
+            double length = stopTimes[stopTimes.length - 1];
+            return circular ? length : 2 * length;
+        }
+
+        /**
+         * Returns the time from stop i to stop j: directly on regular lines, and forward around circular lines.
+         */
+        double getTime(int from, int to) {
+            double time = stopTimes[to] - stopTimes[from];
+            return circular && time < 0 ? time + stopTimes[stopTimes.length - 1] : Math.abs(time);
+        }
+    }
+
+    private final int version;
+    private final IdentityHashMap<TrainLine, LineTimes> lineTimes;
+
+    private TravelTimeTable(int version, IdentityHashMap<TrainLine, LineTimes> lineTimes) {
+        this.version = version;
+        this.lineTimes = lineTimes;
+    }
+
+    /**
+     * Returns the time a train needs for a segment of the given length, from stop to stop.
+     */
+    public static double getSegmentTime(double length) {
+        double accelerationDistance = Math.min(Train.IDEAL_ACCELERATION_DISTANCE, length * ACCELERATION_SHARE);
+        double brakeDistance = Math.min(Train.IDEAL_BRAKE_DISTANCE, length * (1 - ACCELERATION_SHARE));
+        double cruiseDistance = length - accelerationDistance - brakeDistance;
+        return (accelerationDistance + brakeDistance) * PHASE_TIME_PER_DISTANCE + cruiseDistance / Train.MAX_SPEED;
+    }
+
+    /**
+     * Copies what the computation needs from the lines. Must be called on the simulation thread.
+     * @param base Table the computation will be based on; lines it already covers aren't copied
+     */
+    public static List<LineSnapshot> snapshot(List<TrainLine> lines, TravelTimeTable base) {
+        ArrayList<LineSnapshot> snapshots = new ArrayList<>(lines.size());
+        for (TrainLine line : lines) {
+            TrainLineTrack track = line.getTrack();
+            if (track.isEmpty()) {
+                continue;
+            }
+            LineTimes times = base.lineTimes.get(line);
+            if (times != null && times.trackVersion == track.getVersion()) {
+                snapshots.add(new LineSnapshot(line, track.getVersion(), track.isCircular(), null, null));
+                continue;
+            }
+
+            int segmentCount = track.getSegmentCount();
+            Station[] stops = new Station[segmentCount + 1];
+            double[] segmentLengths = new double[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                stops[i] = track.getStop(i);
+                segmentLengths[i] = track.getGeometry(i).getLength();
+            }
+            stops[segmentCount] = track.getStop(segmentCount);
+            snapshots.add(new LineSnapshot(line, track.getVersion(), track.isCircular(), stops, segmentLengths));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Computes the table for the snapshot of the lines. Safe to call on any thread.
+     * @param version Version of the new table; newer tables replace older ones when they are published
+     * @param base Table the snapshot was taken against
+     */
+    public static TravelTimeTable compute(int version, List<LineSnapshot> lines, TravelTimeTable base) {
+        IdentityHashMap<TrainLine, LineTimes> lineTimes = new IdentityHashMap<>();
+        for (LineSnapshot line : lines) {
+            lineTimes.put(line.line(), line.stops() == null ? base.lineTimes.get(line.line()) : computeLine(line));
+        }
+        return new TravelTimeTable(version, lineTimes);
+    }
+
+    private static LineTimes computeLine(LineSnapshot line) {
+        Station[] stops = line.stops();
+        double[] stopTimes = new double[stops.length];
+        for (int i = 0; i < line.segmentLengths().length; i++) {
+            stopTimes[i + 1] = stopTimes[i] + getSegmentTime(line.segmentLengths()[i]);
+        }
+        IdentityHashMap<Station, Integer> stopIndices = new IdentityHashMap<>();
+        for (int i = 0; i < stops.length; i++) {
+            stopIndices.putIfAbsent(stops[i], i);   // The first stop of a circular line is also its last
+        }
+        return new LineTimes(line.trackVersion(), line.circular(), stops, stopIndices, stopTimes);
+    }
+
+    /**
+     * Returns the time from one stop of the line to another, or infinity if the line doesn't stop at both.
+     */
+    public double getTime(TrainLine line, Station from, Station to) {
+        LineTimes times = lineTimes.get(line);
+        if (times == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        Integer fromIndex = times.stopIndices.get(from);
+        Integer toIndex = times.stopIndices.get(to);
+        return fromIndex != null && toIndex != null ? times.getTime(fromIndex, toIndex) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the time a train of the line needs to return to the same position in the same direction,
+     * or 0 if the line has no segments.
+     */
+    public double getCycleTime(TrainLine line) {
+        LineTimes times = lineTimes.get(line);
+        return times != null ? times.getCycleTime() : 0;
+    }
+
+    /**
+     * Returns the version of the table, increasing with every edit of the lines.
+     */
+    public int getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,82 @@
+package base.gameObjects.ui;
+
+import base.gameObjects.AbstractGameObject;
+import base.gameObjects.trainline.TrainLine;
+import base.main.World;
+import base.rendering.FrameSnapshot;
+import base.rendering.FrameSnapshot.DrawCommand;
+
+import java.util.ArrayList;
+
+/**
+ * Row of color swatches, one per train line, in the bottom right corner. Clicking a swatch (or pressing its number
+ * key) selects the line that new connections are drawn with.
+ */
+public class LinePalette extends AbstractGameObject {
+    public static final int SWATCH_SIZE = 30;
+    public static final int SPACING = 10;
+    public static final int MARGIN = 30;
+    public static final int BORDER_THICKNESS = 4;
+
+    private final World world;
+    private int pressedX;   // Where the palette was pressed, as the mouse may have moved until the next update
+
+    public LinePalette(World world) {
+        super(World.UI_Z_INDEX, world);
+        this.world = world;
+        this.y = World.HEIGHT - SWATCH_SIZE - MARGIN;
+        this.setPressable(true);
+    }
+
+    @Override
+    public void update(double deltaTime) {
+        if (isLeftPressed()) {
+            int index = getSwatchAt(pressedX);
+            if (index >= 0) {
+                world.setActiveTrainLine(index);
+            }
+            setLeftPressed(false);
+        }
+    }
+
+    /**
+     * Remembers the x coordinate of the press event that pressed the palette.
+     */
+    public void setPressedX(int x) {
+        this.pressedX = x;
+    }
+
+    @Override
+    public void snapshot(FrameSnapshot frame) {
+        ArrayList<TrainLine> trainLines = world.getTrainLines();
+        frame.addCommand(DrawCommand.LINE_PALETTE);
+        frame.putInt(getStartX());
+        frame.putInt(y);
+        frame.putInt(trainLines.size());
+        frame.putInt(world.getActiveTrainLineIndex());
+        for (TrainLine trainLine : trainLines) {
+            frame.putObject(trainLine.getColor());
+        }
+    }
+
+    @Override
+    public boolean containsPoint(int x, int y) {
+        return y >= this.y && y <= this.y + SWATCH_SIZE && getSwatchAt(x) >= 0;
+    }
+
+    /**
+     * Returns the index of the swatch at the x coordinate, or -1 if there is none.
+     */
+    private int getSwatchAt(int x) {
+        int offset = x - getStartX();
+        int index = Math.floorDiv(offset, SWATCH_SIZE + SPACING);
+        boolean onSwatch = offset - index * (SWATCH_SIZE + SPACING) <= SWATCH_SIZE;
+        return index >= 0 && index < world.getTrainLines().size() && onSwatch ? index : -1;
+    }
+
+    // The palette is right-aligned, so it starts further left the more lines there are
+    private int getStartX() {
+        int count = world.getTrainLines().size();
+        return World.WIDTH - MARGIN - count * SWATCH_SIZE - (count - 1) * SPACING;
+    }
+}
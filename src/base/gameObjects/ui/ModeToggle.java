@@ -1,26 +1,28 @@
 package base.gameObjects.ui;
 
 import base.gameObjects.AbstractGameObject;
-import base.main.GamePanel;
+import base.main.World;
+import base.rendering.FrameSnapshot;
+import base.rendering.FrameSnapshot.DrawCommand;
 
 import java.awt.*;
-import java.awt.geom.RoundRectangle2D;
-
 
 public class ModeToggle extends AbstractGameObject {
-    private static final int WIDTH = 100;
-    private static final int HEIGHT = 50;
-    private static final int MARGIN = 20;
-    private static final int PADDING = 5;
-    private static final Color BUILD_COLOR = new Color(121, 189, 154);
-    private static final Color PLAY_COLOR = new Color(45, 45, 45);
-
+    public static final int WIDTH = 100;
+    public static final int HEIGHT = 50;
+    public static final int MARGIN = 20;
+    public static final int PADDING = 5;
+    public static final Color BUILD_COLOR = new Color(121, 189, 154);
+    public static final Color PLAY_COLOR = new Color(45, 45, 45);
+
+    private final World world;
     private boolean isInBuildMode = false;
 
-    public ModeToggle(GamePanel gamePanel) {
-        super(GamePanel.UI_Z_INDEX, gamePanel);
+    public ModeToggle(World world) {
+        super(World.UI_Z_INDEX, world);
+        this.world = world;
         this.x = MARGIN;
-        this.y = 600 - HEIGHT - MARGIN;
+        this.y = World.HEIGHT - HEIGHT - MARGIN;
         this.setPressable(true);
     }
 
@@ -29,27 +31,16 @@ public class ModeToggle extends AbstractGameObject {
         if (isLeftPressed()) {
             isInBuildMode = !isInBuildMode;
             setLeftPressed(false);
+            world.invalidateStaticLayers();   // The grid is only visible in build mode
         }
     }
 
     @Override
-    public void draw(Graphics2D g2D) {
-        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        RoundRectangle2D background = new RoundRectangle2D.Double(
-                x, y, WIDTH, HEIGHT, HEIGHT, HEIGHT
-        );
-        g2D.setColor(isInBuildMode ? BUILD_COLOR : PLAY_COLOR);
-        g2D.fill(background);
-
-        int circleSize = HEIGHT - 2 * PADDING;
-        int circleX = isInBuildMode ?
-                x + WIDTH - circleSize - PADDING :
-                x + PADDING;
-        int circleY = y + PADDING;
-
-        g2D.setColor(Color.WHITE);
-        g2D.fillOval(circleX, circleY, circleSize, circleSize);
+    public void snapshot(FrameSnapshot frame) {
+        frame.addCommand(DrawCommand.MODE_TOGGLE);
+        frame.putInt(x);
+        frame.putInt(y);
+        frame.putBoolean(isInBuildMode);
     }
 
     @Override
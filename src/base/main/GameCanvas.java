@@ -0,0 +1,109 @@
+package base.main;
+
+import base.rendering.FrameRenderer;
+import base.rendering.FrameSnapshot;
+import base.rendering.PerformanceOverlay;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Actively rendered view of a {@link World}, an alternative to {@link GamePanel}.
+ * <p>
+ * Instead of going through Swing's repaint manager, frames are drawn into a {@link BufferStrategy} back buffer
+ * on a dedicated render thread and flipped to the screen immediately. The render thread draws exactly when the
+ * game loop publishes a frame and calls {@link #requestFrame()}, so the game loop owns the frame timing.
+ */
+public class GameCanvas extends Canvas {
+    private static final int BUFFER_COUNT = 2;
+
+    private final World world;
+    private final FrameRenderer frameRenderer;
+    private final PerformanceOverlay performanceOverlay;
+    private final AtomicBoolean framePending;
+    private Thread renderThread;
+    private volatile boolean running;
+
+    public GameCanvas(World world) {
+        this.world = world;
+        this.frameRenderer = new FrameRenderer(world.getPerformanceMonitor());
+        this.performanceOverlay = new PerformanceOverlay(world.getPerformanceMonitor());
+        this.framePending = new AtomicBoolean(false);
+        this.setPreferredSize(new Dimension(World.WIDTH, World.HEIGHT));
+        this.setBackground(World.BACKGROUND_COLOR);
+        this.setIgnoreRepaint(true);   // All drawing happens on the render thread
+        setFocusable(true);
+
+        InputHandler inputHandler = new InputHandler(world, performanceOverlay);
+        addKeyListener(inputHandler);
+        addMouseListener(inputHandler);
+        addMouseMotionListener(inputHandler);
+    }
+
+    /**
+     * Creates the buffer strategy and starts the render thread. The canvas must be displayable,
+     * i.e. added to a window that was packed or made visible.
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        createBufferStrategy(BUFFER_COUNT);
+        running = true;
+        renderThread = new Thread(this::renderLoop, "render");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (renderThread != null) {
+            LockSupport.unpark(renderThread);
+        }
+    }
+
+    /**
+     * Wakes up the render thread to draw the latest published frame. May be called from any thread.
+     */
+    public void requestFrame() {
+        framePending.set(true);
+        Thread thread = renderThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void renderLoop() {
+        BufferStrategy bufferStrategy = getBufferStrategy();
+        while (running) {
+            if (!framePending.getAndSet(false)) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            FrameSnapshot frame = world.acquireLatestFrame();
+            try {
+                // Redraw until the contents of the back buffer survived (they can be lost, e.g. on display changes)
+                do {
+                    do {
+                        Graphics2D g2D = (Graphics2D) bufferStrategy.getDrawGraphics();
+                        try {
+                            g2D.setColor(World.BACKGROUND_COLOR);
+                            g2D.fillRect(0, 0, getWidth(), getHeight());
+                            frameRenderer.draw(g2D, frame);
+                            performanceOverlay.draw(g2D);
+                        } finally {
+                            g2D.dispose();
+                        }
+                    } while (bufferStrategy.contentsRestored());
+                    bufferStrategy.show();
+                } while (bufferStrategy.contentsLost());
+                Toolkit.getDefaultToolkit().sync();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package base.main;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed-timestep game loop that runs on its own thread.
+ * <p>
+ * The simulation is advanced in steps of exactly {@code 1 / tickRate} seconds, driven by an accumulator of
+ * {@link System#nanoTime()} deltas. Rendering is requested independently at {@code frameRate}, together with the
+ * interpolation factor between the last two ticks, so a slow or stalled frame never slows down the simulation.
+ * If the loop falls behind by more than {@link #MAX_CATCH_UP_TICKS} ticks, the remaining backlog is dropped
+ * instead of trying to catch up forever (spiral of death).
+ */
+public class GameLoop {
+    public static final int DEFAULT_TICK_RATE = 60;
+    public static final int DEFAULT_FRAME_RATE = 60;
+    public static final int MAX_CATCH_UP_TICKS = 5;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final World world;
+    private final Runnable frameRequest;
+    private final int tickRate;
+    private final int frameRate;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Creates a new game loop for the given world.
+     * @param world The world to update
+     * @param frameRequest Called whenever a new frame should be rendered (e.g. {@code gamePanel::repaint})
+     * @param tickRate Number of simulation ticks per second
+     * @param frameRate Number of rendered frames per second
+     */
+    public GameLoop(World world, Runnable frameRequest, int tickRate, int frameRate) {
+        if (tickRate <= 0 || frameRate <= 0) {
+            throw new IllegalArgumentException("Tick rate and frame rate must be positive");
+        }
+        this.world = world;
+        this.frameRequest = frameRequest;
+        this.tickRate = tickRate;
+        this.frameRate = frameRate;
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        final long tickNanos = NANOS_PER_SECOND / tickRate;
+        final long frameNanos = NANOS_PER_SECOND / frameRate;
+        final double deltaTime = 1.0 / tickRate;
+
+        long previousTime = System.nanoTime();
+        long accumulator = 0;
+        long nextFrameTime = previousTime;
+
+        while (running) {
+            long now = System.nanoTime();
+            accumulator += now - previousTime;
+            previousTime = now;
+
+            // Advance the simulation in fixed steps
+            int ticks = 0;
+            while (accumulator >= tickNanos && ticks < MAX_CATCH_UP_TICKS) {
+                world.update(deltaTime);
+                accumulator -= tickNanos;
+                ticks++;
+            }
+            // Drop the backlog if the simulation can't keep up
+            if (accumulator >= tickNanos) {
+                world.getPerformanceMonitor().addDroppedTicks(accumulator / tickNanos);
+                accumulator %= tickNanos;
+            }
+
+            // Publish a frame, interpolated between the last two ticks, and request rendering it
+            now = System.nanoTime();
+            if (now >= nextFrameTime) {
+                world.publishFrame((double) accumulator / tickNanos);
+                frameRequest.run();
+                nextFrameTime += frameNanos;
+                if (nextFrameTime <= now) {
+                    // Skip missed frames instead of rendering them back to back
+                    world.getPerformanceMonitor().addDroppedFrames((now - nextFrameTime) / frameNanos + 1);
+                    nextFrameTime = now + frameNanos;
+                }
+            }
+
+            // Sleep until the next tick or frame is due
+            long nextTickTime = previousTime + (tickNanos - accumulator);
+            long sleepNanos = Math.min(nextTickTime, nextFrameTime) - System.nanoTime();
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(sleepNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package base.main;
+
+import base.gameObjects.station.Station;
+import base.gameObjects.trainline.TrainLine;
+import base.gameObjects.trainline.TravelTimeTable;
+import base.util.PerformanceMonitor;
+import base.util.PerformanceMonitor.UpdatePhase;
+import base.util.TimingHistogram;
+
+/**
+ * Runs the simulation without any window, as fast as possible.
+ * <p>
+ * Usage: {@code HeadlessMain [simulatedMinutes] [tickRate] [threads] [seed]}
+ * <p>
+ * Runs with the same seed give the same result for any number of threads.
+ */
+public class HeadlessMain {
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        int simulatedMinutes = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        int tickRate = args.length > 1 ? Integer.parseInt(args[1]) : GameLoop.DEFAULT_TICK_RATE;
+
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        World world = new World(seed, threads);
+
+        // Connect the initial stations to a line, so trains and passengers are simulated
+        TrainLine trainLine = world.getTrainLines().getFirst();
+        for (Station station : world.getStations()) {
+            trainLine.addStation(station);
+        }
+
+        long ticks = (long) simulatedMinutes * 60 * tickRate;
+        double deltaTime = 1.0 / tickRate;
+
+        long startTime = System.nanoTime();
+        for (long i = 0; i < ticks; i++) {
+            world.update(deltaTime);
+        }
+        double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        int waitingPassengers = 0;
+        for (Station station : world.getStations()) {
+            waitingPassengers += station.getPassengers().size();
+        }
+
+        System.out.printf("Simulated %d minutes (%d ticks) in %.3f s (%.1f simulated minutes per second)%n",
+                simulatedMinutes, ticks, elapsedSeconds, simulatedMinutes / elapsedSeconds);
+        System.out.printf("Seed: %d, threads: %d%n", seed, threads);
+        System.out.printf("Stations: %d, trains: %d, waiting passengers: %d, delivered passengers: %d%n",
+                world.getStations().size(), world.getTrains().size(), waitingPassengers,
+                world.getDeliveredPassengers());
+        TravelTimeTable travelTimes = world.awaitTravelTimes();
+        System.out.printf("Cycle time of the line: %.2f s (travel times version %d)%n",
+                travelTimes.getCycleTime(trainLine), travelTimes.getVersion());
+
+        PerformanceMonitor performanceMonitor = world.getPerformanceMonitor();
+        printHistogram(performanceMonitor.getTickHistogram());
+        for (UpdatePhase phase : UpdatePhase.values()) {
+            printHistogram(performanceMonitor.getUpdatePhaseHistogram(phase));
+        }
+    }
+
+    private static void printHistogram(TimingHistogram histogram) {
+        System.out.printf("%-12s p50 %8d ns  p99 %8d ns  max %10d ns  (%d samples)%n",
+                histogram.getName(), histogram.getPercentile(0.5), histogram.getPercentile(0.99),
+                histogram.getMax(), histogram.getCount());
+    }
+}
@@ -1,23 +1,35 @@
 package base.main;
 
-import base.gameObjects.AbstractGameObject;
+import base.rendering.PerformanceOverlay;
 
 import javax.swing.*;
 import java.awt.event.*;
 
-public class InputHandler implements KeyListener, MouseListener {
+/**
+ * Forwards mouse and keyboard input from the Swing event thread to the {@link World}.
+ */
+public class InputHandler implements KeyListener, MouseListener, MouseMotionListener {
 
-    private GamePanel gamePanel;
+    private World world;
+    private PerformanceOverlay performanceOverlay;
 
-    public InputHandler(GamePanel gamePanel) {
-        this.gamePanel = gamePanel;
+    public InputHandler(World world, PerformanceOverlay performanceOverlay) {
+        this.world = world;
+        this.performanceOverlay = performanceOverlay;
     }
 
     @Override
     public void keyTyped(KeyEvent e) { }
 
     @Override
-    public void keyPressed(KeyEvent e) { }
+    public void keyPressed(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            performanceOverlay.toggleVisible();
+        } else if (e.getKeyCode() >= KeyEvent.VK_1 && e.getKeyCode() <= KeyEvent.VK_9) {
+            // Number keys select the train line with that position in the palette
+            world.queueActiveTrainLine(e.getKeyCode() - KeyEvent.VK_1);
+        }
+    }
 
     @Override
     public void keyReleased(KeyEvent e) { }
@@ -32,32 +44,19 @@ public class InputHandler implements KeyListener, MouseListener {
     public void mousePressed(MouseEvent e) {
         int mouseX = e.getX();
         int mouseY = e.getY();
+        world.setMousePosition(mouseX, mouseY);
 
-        // Set the object with the highest z-index as pressed (if it's pressable and contains the mouse pointer)
-        AbstractGameObject objectWithHighestZIndex = null;
-        for (AbstractGameObject interactableGameObject : gamePanel.getInteractableGameObjects()) {
-            if (interactableGameObject.isPressable() && interactableGameObject.containsPoint(mouseX, mouseY)) {
-                if (objectWithHighestZIndex == null || interactableGameObject.z > objectWithHighestZIndex.z) {
-                    objectWithHighestZIndex = interactableGameObject;
-                }
-            }
-        }
-        if (objectWithHighestZIndex != null) {
-            if (SwingUtilities.isLeftMouseButton(e)) {
-                objectWithHighestZIndex.setLeftPressed(true);
-            } else if (SwingUtilities.isRightMouseButton(e)) {
-                objectWithHighestZIndex.setRightPressed(true);
-            }
+        // The pressed object is determined on the simulation thread
+        if (SwingUtilities.isLeftMouseButton(e)) {
+            world.queueMousePress(mouseX, mouseY, World.MouseButton.LEFT);
+        } else if (SwingUtilities.isRightMouseButton(e)) {
+            world.queueMousePress(mouseX, mouseY, World.MouseButton.RIGHT);
         }
     }
 
     @Override
     public void mouseReleased(MouseEvent e) {
-        for (AbstractGameObject interactableGameObject : gamePanel.getInteractableGameObjects()) {
-            if (interactableGameObject.isPressable() && interactableGameObject.isLeftPressed()) {
-                interactableGameObject.setLeftPressed(false);
-            }
-        }
+        world.queueMouseRelease(e.getX(), e.getY());
     }
 
     @Override
@@ -65,4 +64,15 @@ public class InputHandler implements KeyListener, MouseListener {
 
     @Override
     public void mouseExited(MouseEvent e) { }
+
+    // MouseMotionListener methods
+    @Override
+    public void mouseDragged(MouseEvent e) {
+        world.setMousePosition(e.getX(), e.getY());
+    }
+
+    @Override
+    public void mouseMoved(MouseEvent e) {
+        world.setMousePosition(e.getX(), e.getY());
+    }
 }
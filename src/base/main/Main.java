@@ -6,14 +6,26 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 
 public class Main {
+    public static final int TICK_RATE = Integer.getInteger("tickRate", GameLoop.DEFAULT_TICK_RATE);
+    public static final int FRAME_RATE = Integer.getInteger("frameRate", GameLoop.DEFAULT_FRAME_RATE);
+    public static final boolean ACTIVE_RENDERING = Boolean.getBoolean("activeRendering");
 
     public static void main(String[] args) {
         JFrame window = new JFrame("Mini Metro Clone");
         window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         window.setResizable(false);
 
-        GamePanel gamePanel = new GamePanel();
-        window.add(gamePanel);
+        World world = new World();
+        // Draw either through Swing's repaint manager or actively on a dedicated render thread
+        GamePanel gamePanel = null;
+        GameCanvas gameCanvas = null;
+        if (ACTIVE_RENDERING) {
+            gameCanvas = new GameCanvas(world);
+            window.add(gameCanvas);
+        } else {
+            gamePanel = new GamePanel(world);
+            window.add(gamePanel);
+        }
 
         window.pack();
 
@@ -46,12 +58,27 @@ public class Main {
 
         window.setVisible(true);
 
-        gamePanel.startGameThread();
+        Runnable frameRequest;
+        if (gameCanvas != null) {
+            gameCanvas.start();
+            gameCanvas.requestFocusInWindow();
+            frameRequest = gameCanvas::requestFrame;
+        } else {
+            gamePanel.requestFocusInWindow();
+            frameRequest = gamePanel::repaint;
+        }
+
+        GameLoop gameLoop = new GameLoop(world, frameRequest, TICK_RATE, FRAME_RATE);
+        gameLoop.start();
 
+        GameCanvas finalGameCanvas = gameCanvas;
         window.addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                gamePanel.stopGameThread();
+                gameLoop.stop();
+                if (finalGameCanvas != null) {
+                    finalGameCanvas.stop();
+                }
             }
         });
     }
@@ -0,0 +1,661 @@
+package base.main;
+
+import base.gameObjects.*;
+import base.gameObjects.shape.ShapeType;
+import base.gameObjects.station.ShapeCensus;
+import base.gameObjects.station.SpawnScheduler;
+import base.gameObjects.station.Station;
+import base.gameObjects.station.StationExclusionCircle;
+import base.gameObjects.train.Train;
+import base.gameObjects.train.TrainEngine;
+import base.gameObjects.trainline.RoutingTable;
+import base.gameObjects.trainline.TrainLine;
+import base.gameObjects.trainline.TrainLineSegment;
+import base.gameObjects.trainline.TravelTimeTable;
+import base.gameObjects.ui.LinePalette;
+import base.gameObjects.ui.ModeToggle;
+import base.rendering.FrameSnapshot;
+import base.rendering.RenderQueue;
+import base.util.PerformanceMonitor;
+import base.util.PerformanceMonitor.UpdatePhase;
+import base.util.PhaseExecutor;
+import base.util.SpatialHash;
+import base.util.TripleBuffer;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The simulation core of the game. Owns all game objects (stations, train lines, trains, ...) and advances them
+ * with {@link #update(double)}. The world has no Swing dependency, so it can be ticked headless from a plain
+ * {@code main} or a test as fast as the CPU allows; {@link GamePanel} is only a view and input adapter on top of it.
+ * <p>
+ * The world is only accessed by the simulation thread, which may fan out independent work of a tick (moving
+ * trains) to a thread pool and waits for it before continuing. Other threads communicate with it without locks:
+ * input is queued with {@link #queueMousePress} / {@link #queueMouseRelease} / {@link #queueActiveTrainLine} and
+ * processed at the start of the next tick, and the renderer reads immutable frames published with
+ * {@link #publishFrame(double)}. Travel times are computed on a background thread and published the same way, see
+ * {@link #getTravelTimes()}.
+ */
+public class World {
+    public static final int WIDTH = 800;
+    public static final int HEIGHT = 600;
+    public static final Color BACKGROUND_COLOR = Color.WHITE;
+
+    public static final int GRID_Z_INDEX = 0;
+    public static final int STATION_EXCLUSION_CIRCLE_Z_INDEX = 1;
+    public static final int TRAIN_LINE_Z_INDEX = 2;
+    public static final int STATION_SELECTOR_Z_INDEX = 3;
+    public static final int TRAIN_Z_INDEX = 4;
+    public static final int STATION_Z_INDEX = 5;
+    public static final int PASSENGER_Z_INDEX = 6;
+    public static final int UI_Z_INDEX = 10;
+
+    // Layers up to this z index only change when the network is edited, so they are rendered once and cached
+    public static final int STATIC_LAYERS_MAX_Z_INDEX = TRAIN_LINE_Z_INDEX;
+
+    public enum MouseButton { LEFT, RIGHT }
+
+    private record MouseEvent(boolean pressed, int x, int y, MouseButton button) {}
+
+    // Game objects
+    private final Grid grid;
+    private final ArrayList<Station> stations;
+    private final ArrayList<TrainLine> trainLines;
+    private final ArrayList<Train> trains;
+    private int activeTrainLineIndex = 0;   // Line that new connections are drawn with
+    private final TrainEngine trainEngine;
+    private final ShapeCensus shapeCensus;
+    private final SpawnScheduler spawnScheduler;
+    private final RoutingTable routingTable;
+    private int networkVersion = 0;
+
+    // Travel times, computed in the background after the lines were edited
+    private final ThreadPoolExecutor travelTimeExecutor;
+    private final AtomicReference<TravelTimeTable> travelTimes = new AtomicReference<>(TravelTimeTable.EMPTY);
+    private int travelTimesVersion = 0;
+    private boolean travelTimesOutdated = false;
+
+    // UI objects
+    private final ModeToggle modeToggle;
+    private final LinePalette linePalette;
+
+    // Spatial indices, so objects at a position can be found without scanning all objects
+    private final SpatialHash<Station> stationIndex;
+    private final SpatialHash<StationExclusionCircle> exclusionCircleIndex;
+    private final SpatialHash<TrainLineSegment> segmentIndex;
+
+    // Rendering
+    private final RenderQueue renderQueue;
+    private final TripleBuffer<FrameSnapshot> frames;
+    private FrameSnapshot staticLayers;
+    private int staticLayersVersion = 0;
+    private int publishedStaticLayersVersion = -1;
+
+    // Simulation
+    private final long seed;
+    private final PhaseExecutor phaseExecutor;
+    private int nextStationId = 0;
+    private int tick = 0;
+    private long deliveredPassengers = 0;
+
+    // Profiling
+    private final PerformanceMonitor performanceMonitor;
+
+    // Input and rendering state, provided by the view
+    private final ConcurrentLinkedQueue<MouseEvent> mouseEvents;
+    private final ArrayList<AbstractGameObject> leftPressedGameObjects;   // Released with the next mouse release
+    private final AtomicInteger requestedActiveTrainLine = new AtomicInteger(-1);
+    private volatile Point mousePosition = new Point();
+    private double interpolation = 1.0;   // Progress between the last two ticks [0, 1]
+
+    /**
+     * Creates a world with a random seed that uses all available processors.
+     */
+    public World() {
+        this(new Random().nextLong(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a world. Worlds with the same seed evolve identically for the same input, regardless of the number
+     * of threads, so a game can be replayed to reproduce a bug.
+     * @param seed Seed of all random decisions of the simulation
+     * @param parallelism Number of threads that update the game objects
+     */
+    public World(long seed, int parallelism) {
+        this.seed = seed;
+        phaseExecutor = new PhaseExecutor(parallelism);
+        renderQueue = new RenderQueue(UI_Z_INDEX);
+        frames = new TripleBuffer<>(() -> new FrameSnapshot(UI_Z_INDEX));
+        mouseEvents = new ConcurrentLinkedQueue<>();
+        leftPressedGameObjects = new ArrayList<>();
+        performanceMonitor = new PerformanceMonitor(UI_Z_INDEX);
+        stationIndex = new SpatialHash<>(Grid.GRID_SIZE);
+        exclusionCircleIndex = new SpatialHash<>(Grid.GRID_SIZE);
+        segmentIndex = new SpatialHash<>(Grid.GRID_SIZE);
+
+        grid = new Grid(this);
+        stations = new ArrayList<>();
+        trainLines = new ArrayList<>();
+        trains = new ArrayList<>();
+        trainEngine = new TrainEngine(phaseExecutor);
+        shapeCensus = new ShapeCensus();
+        spawnScheduler = new SpawnScheduler();
+        routingTable = new RoutingTable();
+        travelTimeExecutor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "travel-times");
+            thread.setDaemon(true);
+            return thread;
+        });
+        travelTimeExecutor.allowCoreThreadTimeOut(true);   // Idle worlds don't keep a thread
+        for (Color color : TrainLine.PALETTE) {
+            addTrainLine(new TrainLine(color, this));
+        }
+
+        modeToggle = new ModeToggle(this);
+        linePalette = new LinePalette(this);
+
+        renderQueue.add(grid, grid.z);
+        renderQueue.add(modeToggle, modeToggle.z);
+        renderQueue.add(linePalette, linePalette.z);
+
+        // Place three stations at the beginning of the game
+        grid.addStation(150, 150);
+        stations.get(0).setShapeType(ShapeType.CIRCLE);
+        grid.addStation(450, 150);
+        stations.get(1).setShapeType(ShapeType.SQUARE);
+        grid.addStation(450, 450);
+        stations.get(2).setShapeType(ShapeType.TRIANGLE);
+    }
+
+    public void update(double deltaTime) {
+        long startTime = System.nanoTime();
+        long time = startTime;
+        tick++;
+        try {
+            processInput();
+            modeToggle.update(deltaTime);
+            linePalette.update(deltaTime);
+            time = performanceMonitor.lap(UpdatePhase.MODE_TOGGLE, time);
+            // Build-Mode-only updates
+            if (modeToggle.isInBuildMode()) {
+                grid.update(deltaTime);
+                time = performanceMonitor.lap(UpdatePhase.GRID, time);
+            }
+            // Game-Mode-only updates: all trains move in parallel, then exchange passengers one after another
+            else {
+                trainEngine.update(deltaTime);
+                time = performanceMonitor.lap(UpdatePhase.TRAINS, time);
+                for (Train train : trains) {
+                    train.update(deltaTime);
+                }
+                time = performanceMonitor.lap(UpdatePhase.PASSENGER_EXCHANGE, time);
+            }
+            // Stations react to input in build mode, and spawn passengers when they are due in play mode
+            if (modeToggle.isInBuildMode()) {
+                for (Station station : stations) {
+                    station.update(deltaTime);
+                }
+            } else {
+                spawnScheduler.update(deltaTime);
+            }
+            time = performanceMonitor.lap(UpdatePhase.STATIONS, time);
+            for (TrainLine trainLine : trainLines) {
+                trainLine.update(deltaTime);
+            }
+            if (travelTimesOutdated) {
+                computeTravelTimes();
+            }
+            time = performanceMonitor.lap(UpdatePhase.TRAIN_LINES, time);
+            performanceMonitor.recordTick(time - startTime);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the current state of all drawable game objects into a new frame and publishes it to the renderer.
+     * @param interpolation Progress between the previous and the latest tick [0, 1], used to interpolate
+     *                      moving objects when rendering at a different rate than the simulation
+     */
+    public void publishFrame(double interpolation) {
+        this.interpolation = interpolation;
+        try {
+            // The static layers are written into a separate frame that is only replaced when they changed,
+            // so the renderer can keep its cached image of them as long as it gets the same frame
+            if (publishedStaticLayersVersion != staticLayersVersion) {
+                staticLayers = new FrameSnapshot(UI_Z_INDEX);
+                renderQueue.snapshot(staticLayers, 0, STATIC_LAYERS_MAX_Z_INDEX);
+                publishedStaticLayersVersion = staticLayersVersion;
+            }
+
+            FrameSnapshot frame = frames.getBackBuffer();
+            frame.clear();
+            frame.setStaticLayers(staticLayers);
+            renderQueue.snapshot(frame, STATIC_LAYERS_MAX_Z_INDEX + 1, UI_Z_INDEX);
+            frames.publish();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Marks the static layers (grid, exclusion circles, train lines) as changed, so they are written and rendered
+     * again with the next frame. Must be called whenever a game object on these layers is added, removed or moved.
+     */
+    public void invalidateStaticLayers() {
+        staticLayersVersion++;
+    }
+
+    /**
+     * Returns the latest published frame. May be called from any single render thread.
+     */
+    public FrameSnapshot acquireLatestFrame() {
+        return frames.acquire();
+    }
+
+    /**
+     * Queues a mouse press, which is processed at the start of the next tick. May be called from any thread.
+     */
+    public void queueMousePress(int x, int y, MouseButton button) {
+        mouseEvents.add(new MouseEvent(true, x, y, button));
+    }
+
+    /**
+     * Queues a mouse release, which is processed at the start of the next tick. May be called from any thread.
+     */
+    public void queueMouseRelease(int x, int y) {
+        mouseEvents.add(new MouseEvent(false, x, y, null));
+    }
+
+    /**
+     * Queues the selection of the train line with the given index in the palette, which is processed at the start
+     * of the next tick. May be called from any thread.
+     */
+    public void queueActiveTrainLine(int index) {
+        requestedActiveTrainLine.set(index);
+    }
+
+    private void processInput() {
+        int requestedLine = requestedActiveTrainLine.getAndSet(-1);
+        if (requestedLine >= 0) {
+            setActiveTrainLine(requestedLine);
+        }
+
+        MouseEvent event;
+        while ((event = mouseEvents.poll()) != null) {
+            if (event.pressed()) {
+                handleMousePress(event.x(), event.y(), event.button());
+            } else {
+                handleMouseRelease();
+            }
+        }
+    }
+
+    private void handleMousePress(int x, int y, MouseButton button) {
+        // Set the object with the highest z-index as pressed (if it's pressable and contains the mouse pointer).
+        // Only the UI, stations and the grid can contain a point (train lines and trains never do), so
+        // they are checked in descending z order, with the station found through the spatial index.
+        AbstractGameObject objectWithHighestZIndex = null;
+        if (modeToggle.isPressable() && modeToggle.containsPoint(x, y)) {
+            objectWithHighestZIndex = modeToggle;
+        } else if (linePalette.isPressable() && linePalette.containsPoint(x, y)) {
+            objectWithHighestZIndex = linePalette;
+            linePalette.setPressedX(x);
+        } else {
+            Station station = getStationAt(x, y);
+            if (station != null && station.isPressable()) {
+                objectWithHighestZIndex = station;
+            } else if (grid.isPressable() && grid.containsPoint(x, y)) {
+                objectWithHighestZIndex = grid;
+                grid.setPressedPosition(x, y);
+            }
+        }
+        if (objectWithHighestZIndex != null) {
+            if (button == MouseButton.LEFT) {
+                objectWithHighestZIndex.setLeftPressed(true);
+            } else {
+                objectWithHighestZIndex.setRightPressed(true);
+            }
+        }
+    }
+
+    private void handleMouseRelease() {
+        for (int i = 0; i < leftPressedGameObjects.size(); i++) {
+            AbstractGameObject gameObject = leftPressedGameObjects.get(i);
+            if (gameObject.isPressable() && gameObject.isLeftPressed()) {
+                gameObject.setLeftPressed(false);
+            }
+        }
+        leftPressedGameObjects.clear();
+    }
+
+    /**
+     * Remembers a game object that became left-pressed, by the mouse or by another object (e.g. the stations a line
+     * is drawn through), so the next mouse release only has to release these.
+     */
+    public void onLeftPressed(AbstractGameObject gameObject) {
+        leftPressedGameObjects.add(gameObject);
+    }
+
+    /**
+     * Adds a station and its exclusion circle to the world.
+     */
+    public void addStation(Station station) {
+        stations.add(station);
+        shapeCensus.add(station.getCurrentShapeType());
+        station.getPassengerSpawner().start();
+        invalidateNetwork();
+        stationIndex.put(station,
+                station.x - Station.SIZE / 2.0, station.y - Station.SIZE / 2.0,
+                station.x + Station.SIZE / 2.0, station.y + Station.SIZE / 2.0);
+        StationExclusionCircle exclusionCircle = station.getExclusionCircle();
+        exclusionCircleIndex.put(exclusionCircle,
+                exclusionCircle.x, exclusionCircle.y,
+                exclusionCircle.x + exclusionCircle.getSize(), exclusionCircle.y + exclusionCircle.getSize());
+        renderQueue.add(station, station.z);
+        renderQueue.add(station.getPassengerLayer(), PASSENGER_Z_INDEX);
+        renderQueue.add(station.getExclusionCircle(), station.getExclusionCircle().z);
+        invalidateStaticLayers();
+    }
+
+    /**
+     * Removes a station and its exclusion circle from the world.
+     */
+    public void removeStation(Station station) {
+        if (!stations.remove(station)) {
+            return;   // Already removed
+        }
+        shapeCensus.remove(station.getCurrentShapeType());
+        station.getPassengerSpawner().stop();
+        invalidateNetwork();
+        stationIndex.remove(station);
+        exclusionCircleIndex.remove(station.getExclusionCircle());
+        renderQueue.remove(station);
+        renderQueue.remove(station.getPassengerLayer());
+        renderQueue.remove(station.getExclusionCircle());
+        leftPressedGameObjects.remove(station);
+        invalidateStaticLayers();
+    }
+
+    /**
+     * Marks the network (stations, their shapes and the lines connecting them) as changed, so the routing table
+     * is rebuilt before it is used next.
+     */
+    public void invalidateNetwork() {
+        networkVersion++;
+    }
+
+    /**
+     * Marks the travel times as outdated after segments of a line were added or removed. They are computed again
+     * in the background after the current tick.
+     */
+    public void invalidateTravelTimes() {
+        travelTimesOutdated = true;
+    }
+
+    /**
+     * Copies the lines and computes their travel times on the background thread. A table only replaces the
+     * published one if it is newer, so tables that finish out of order don't matter.
+     */
+    private void computeTravelTimes() {
+        travelTimesOutdated = false;
+        int version = ++travelTimesVersion;
+        TravelTimeTable base = travelTimes.get();
+        List<TravelTimeTable.LineSnapshot> lines = TravelTimeTable.snapshot(trainLines, base);
+        travelTimeExecutor.execute(() -> {
+            TravelTimeTable table = TravelTimeTable.compute(version, lines, base);
+            travelTimes.accumulateAndGet(table, (current, next) -> next.getVersion() > current.getVersion() ? next : current);
+        });
+    }
+
+    /**
+     * Returns the latest published travel times. May be called from any thread. The table can lag behind the
+     * latest edits of the lines for a moment, so the simulation itself must not depend on it, or runs with the
+     * same seed would differ.
+     */
+    public TravelTimeTable getTravelTimes() {
+        return travelTimes.get();
+    }
+
+    /**
+     * Computes the travel times for the current lines, if they are outdated, and waits until all pending
+     * computations are published. For callers that need the times of the current network, like the headless
+     * runner; the game itself never waits for them.
+     */
+    public TravelTimeTable awaitTravelTimes() {
+        if (travelTimesOutdated) {
+            computeTravelTimes();
+        }
+        try {
+            // The executor runs the computations in order, so they are all done when this one is
+            travelTimeExecutor.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return travelTimes.get();
+    }
+
+    /**
+     * Returns the routing table of the current network.
+     */
+    public RoutingTable getRoutingTable() {
+        if (routingTable.getVersion() != networkVersion) {
+            routingTable.rebuild(stations, trainLines, networkVersion);
+        }
+        return routingTable;
+    }
+
+    /**
+     * Updates the shape census after a station of the world changed its shape.
+     */
+    public void onStationShapeChanged(Station station, ShapeType oldShapeType) {
+        if (stationIndex.contains(station)) {
+            shapeCensus.change(oldShapeType, station.getCurrentShapeType());
+            invalidateNetwork();
+        }
+    }
+
+    /**
+     * Adds a fixed segment of a train line to the spatial index, or updates it after its geometry changed.
+     * Station selectors follow the mouse and are not indexed.
+     */
+    public void indexSegment(TrainLineSegment segment) {
+        Rectangle2D bounds = segment.getBounds();
+        segmentIndex.put(segment, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+    }
+
+    public void unindexSegment(TrainLineSegment segment) {
+        segmentIndex.remove(segment);
+    }
+
+    /**
+     * Returns the station containing the point, or null if there is none.
+     */
+    public Station getStationAt(int x, int y) {
+        List<Station> candidates = stationIndex.getCandidates(x, y);
+        for (int i = 0; i < candidates.size(); i++) {
+            Station station = candidates.get(i);
+            if (station.containsPoint(x, y)) {
+                return station;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the point is inside the exclusion circle of any station, where no other station may be placed.
+     */
+    public boolean isInExclusionZone(int x, int y) {
+        List<StationExclusionCircle> candidates = exclusionCircleIndex.getCandidates(x, y);
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.get(i).containsPoint(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the fixed train line segments whose bounding boxes might contain the point. The returned list must
+     * not be modified and is only valid until segments are added, removed or changed.
+     */
+    public List<TrainLineSegment> getSegmentCandidatesAt(double x, double y) {
+        return segmentIndex.getCandidates(x, y);
+    }
+
+    public void addTrainLine(TrainLine trainLine) {
+        trainLines.add(trainLine);
+        renderQueue.add(trainLine, trainLine.z);
+        renderQueue.add(trainLine.getSelectorLayer(), STATION_SELECTOR_Z_INDEX);
+        invalidateStaticLayers();
+        invalidateNetwork();
+    }
+
+    public void addTrain(Train train) {
+        trains.add(train);
+        renderQueue.add(train, train.z);
+    }
+
+    public void removeTrain(Train train) {
+        trains.remove(train);
+        trainEngine.remove(train);
+        renderQueue.remove(train);
+    }
+
+    public boolean isInBuildMode() {
+        return modeToggle.isInBuildMode();
+    }
+
+    /**
+     * Returns the last known mouse position in world coordinates.
+     * In a headless world this stays at the origin unless set explicitly.
+     */
+    public Point getMousePosition() {
+        return new Point(mousePosition);
+    }
+
+    public void setMousePosition(int x, int y) {
+        this.mousePosition = new Point(x, y);
+    }
+
+    /**
+     * Returns how far the frame that is currently being published lies between the previous and the latest tick.
+     * @return Interpolation factor between 0 (previous tick) and 1 (latest tick)
+     */
+    public double getInterpolation() {
+        return interpolation;
+    }
+
+    public ArrayList<Station> getStations() {
+        return stations;
+    }
+
+    /**
+     * Selects the line that new connections are drawn with. Ignored if there is no line with the index.
+     */
+    public void setActiveTrainLine(int index) {
+        if (index >= 0 && index < trainLines.size()) {
+            activeTrainLineIndex = index;
+        }
+    }
+
+    public TrainLine getActiveTrainLine() {
+        return trainLines.get(activeTrainLineIndex);
+    }
+
+    public int getActiveTrainLineIndex() {
+        return activeTrainLineIndex;
+    }
+
+    public ArrayList<TrainLine> getTrainLines() {
+        return trainLines;
+    }
+
+    public ArrayList<Train> getTrains() {
+        return trains;
+    }
+
+    /**
+     * Returns a new identifier for a station. Identifiers are never reused and are assigned in creation order,
+     * so they are the same in every replay of a game.
+     */
+    public int nextStationId() {
+        return nextStationId++;
+    }
+
+    /**
+     * Returns the number of the current tick, counted from the creation of the world.
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    public void addDeliveredPassengers(int count) {
+        deliveredPassengers += count;
+    }
+
+    /**
+     * Returns the number of passengers that reached a station of their shape since the world was created.
+     */
+    public long getDeliveredPassengers() {
+        return deliveredPassengers;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Creates a random generator for one object of the simulation. Each object has its own, independent stream
+     * derived from the world's seed, so the objects can be updated in any order and on any thread.
+     * @param streamId Identifier of the object, e.g. a station id
+     */
+    public Random createRandom(long streamId) {
+        // SplitMix64 finalizer, so neighbouring ids give unrelated seeds
+        long z = seed + (streamId + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new Random(z ^ (z >>> 31));
+    }
+
+    public ShapeCensus getShapeCensus() {
+        return shapeCensus;
+    }
+
+    public SpawnScheduler getSpawnScheduler() {
+        return spawnScheduler;
+    }
+
+    public TrainEngine getTrainEngine() {
+        return trainEngine;
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    public ModeToggle getModeToggle() {
+        return modeToggle;
+    }
+
+    public RenderQueue getRenderQueue() {
+        return renderQueue;
+    }
+
+    public PerformanceMonitor getPerformanceMonitor() {
+        return performanceMonitor;
+    }
+}
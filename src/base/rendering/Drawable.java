@@ -0,0 +1,12 @@
+package base.rendering;
+
+/**
+ * Anything that can be drawn through a {@link RenderQueue}.
+ */
+public interface Drawable {
+    /**
+     * Writes the draw commands of this object into the frame. Called on the simulation thread,
+     * so implementations may read the simulation state without synchronization.
+     */
+    void snapshot(FrameSnapshot frame);
+}
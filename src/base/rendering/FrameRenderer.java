@@ -0,0 +1,275 @@
+package base.rendering;
+
+import base.gameObjects.Grid;
+import base.gameObjects.shape.ShapeFactory;
+import base.gameObjects.shape.ShapeType;
+import base.gameObjects.station.Station;
+import base.gameObjects.train.Train;
+import base.gameObjects.trainline.TrainLine;
+import base.gameObjects.ui.LinePalette;
+import base.gameObjects.ui.ModeToggle;
+import base.main.World;
+import base.rendering.FrameSnapshot.DrawCommand;
+import base.util.PerformanceMonitor;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws {@link FrameSnapshot}s. Only reads the snapshot, never the simulation state,
+ * so it can run on any thread while the simulation keeps running.
+ */
+public class FrameRenderer {
+    private static final Color GRID_COLOR = new Color(200, 200, 200);
+    private static final BasicStroke TRAIN_LINE_STROKE =
+            new BasicStroke(TrainLine.LINE_THICKNESS, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final BasicStroke LINE_PALETTE_STROKE = new BasicStroke(LinePalette.BORDER_THICKNESS);
+
+    private final PerformanceMonitor performanceMonitor;
+    private final PassengerSpriteAtlas passengerSprites;
+
+    // Image of the static layers, redrawn only when the world publishes new static layers
+    private BufferedImage staticLayersImage;
+    private FrameSnapshot renderedStaticLayers;
+
+    // Read positions of the command arguments in the current frame
+    private FrameSnapshot frame;
+    private int intIndex, doubleIndex, objectIndex;
+
+    public FrameRenderer(PerformanceMonitor performanceMonitor) {
+        this.performanceMonitor = performanceMonitor;
+        this.passengerSprites = new PassengerSpriteAtlas();
+    }
+
+    /**
+     * Draws all commands of the frame layer by layer and records the time spent on each layer.
+     * The static layers of the frame are drawn first, from a cached image; their time is recorded for layer 0.
+     */
+    public void draw(Graphics2D g2D, FrameSnapshot frame) {
+        long startTime = System.nanoTime();
+        long time = startTime;
+        int command = 0;
+        for (int z = 0; z <= frame.getMaxZIndex(); z++) {
+            if (z == 0) {
+                drawStaticLayers(g2D, frame.getStaticLayers());
+                beginReading(frame);
+            }
+            int layerEnd = frame.getLayerEnd(z);
+            for (; command < layerEnd; command++) {
+                drawCommand(g2D, frame.getCommand(command));
+            }
+            time = performanceMonitor.lapPaintLayer(z, time);
+        }
+        performanceMonitor.recordFrame(time - startTime);
+
+        this.frame = null;
+    }
+
+    private void drawStaticLayers(Graphics2D g2D, FrameSnapshot staticLayers) {
+        if (staticLayers == null) {
+            return;
+        }
+
+        // Render at the device resolution, so the cached image isn't blurry on scaled displays
+        AffineTransform deviceTransform = g2D.getDeviceConfiguration().getDefaultTransform();
+        int width = (int) Math.ceil(World.WIDTH * deviceTransform.getScaleX());
+        int height = (int) Math.ceil(World.HEIGHT * deviceTransform.getScaleY());
+
+        if (staticLayersImage == null || staticLayersImage.getWidth() != width || staticLayersImage.getHeight() != height) {
+            staticLayersImage = g2D.getDeviceConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+            renderedStaticLayers = null;
+        }
+
+        if (staticLayers != renderedStaticLayers) {
+            Graphics2D imageGraphics = staticLayersImage.createGraphics();
+            try {
+                imageGraphics.setComposite(AlphaComposite.Clear);
+                imageGraphics.fillRect(0, 0, width, height);
+                imageGraphics.setComposite(AlphaComposite.SrcOver);
+                imageGraphics.scale(deviceTransform.getScaleX(), deviceTransform.getScaleY());
+
+                beginReading(staticLayers);
+                for (int command = 0; command < staticLayers.getCommandCount(); command++) {
+                    drawCommand(imageGraphics, staticLayers.getCommand(command));
+                }
+            } finally {
+                imageGraphics.dispose();
+            }
+            renderedStaticLayers = staticLayers;
+        }
+
+        g2D.drawImage(staticLayersImage, 0, 0, World.WIDTH, World.HEIGHT, null);
+    }
+
+    private void beginReading(FrameSnapshot frame) {
+        this.frame = frame;
+        intIndex = 0;
+        doubleIndex = 0;
+        objectIndex = 0;
+    }
+
+    private void drawCommand(Graphics2D g2D, DrawCommand command) {
+        switch (command) {
+            case GRID -> drawGrid(g2D);
+            case EXCLUSION_CIRCLE -> drawExclusionCircle(g2D);
+            case TRAIN_LINE_SEGMENT -> drawTrainLineSegment(g2D);
+            case TRAIN -> drawTrain(g2D);
+            case STATION -> drawStation(g2D);
+            case PASSENGER -> drawPassenger(g2D);
+            case MODE_TOGGLE -> drawModeToggle(g2D);
+            case LINE_PALETTE -> drawLinePalette(g2D);
+        }
+    }
+
+    private void drawGrid(Graphics2D g2D) {
+        g2D.setColor(GRID_COLOR);
+        for (int x = 0; x <= World.WIDTH; x += Grid.GRID_SIZE) {
+            g2D.drawLine(x, 0, x, World.HEIGHT);
+        }
+        for (int y = 0; y <= World.HEIGHT; y += Grid.GRID_SIZE) {
+            g2D.drawLine(0, y, World.WIDTH, y);
+        }
+    }
+
+    private void drawExclusionCircle(Graphics2D g2D) {
+        int x = nextInt();
+        int y = nextInt();
+        int size = nextInt();
+
+        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2D.setColor(World.BACKGROUND_COLOR);
+        g2D.fillOval(x, y, size, size);
+    }
+
+    private void drawTrainLineSegment(Graphics2D g2D) {
+        Color color = nextObject();
+        Path2D path = nextObject();
+
+        g2D.setStroke(TRAIN_LINE_STROKE);
+        g2D.setColor(color);
+        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2D.draw(path);
+    }
+
+    private void drawTrain(Graphics2D g2D) {
+        Color color = nextObject();
+        double x = nextDouble();
+        double y = nextDouble();
+        double angle = nextDouble();
+
+        AffineTransform oldTransform = g2D.getTransform();
+        g2D.translate(x, y);
+        g2D.rotate(angle);
+
+        g2D.setColor(color);
+        g2D.fillRect(-Train.TRAIN_WIDTH/2, -Train.TRAIN_HEIGHT/2, Train.TRAIN_WIDTH, Train.TRAIN_HEIGHT);
+
+        // Passengers, positioned relative to the train's center and blitted with the train's transform
+        double passengerRotation = nextDouble();
+        int passengerSize = nextInt();
+        int passengerCount = nextInt();
+        Object oldInterpolation = g2D.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        g2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        for (int i = 0; i < passengerCount; i++) {
+            int passengerX = nextInt();
+            int passengerY = nextInt();
+            ShapeType shapeType = nextObject();
+
+            passengerSprites.draw(g2D, shapeType, passengerSize, Color.WHITE, passengerRotation, passengerX, passengerY);
+        }
+        if (oldInterpolation != null) {
+            g2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, oldInterpolation);
+        }
+
+        g2D.setTransform(oldTransform);
+    }
+
+    private void drawStation(Graphics2D g2D) {
+        int x = nextInt();
+        int y = nextInt();
+        ShapeType shapeType = nextObject();
+        boolean selected = nextBoolean();
+        Color selectedColor = nextObject();
+
+        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        ShapeFactory.getShape(shapeType).draw(g2D, x, y, Station.SIZE, Color.WHITE,
+                Station.BORDER_THICKNESS, Color.BLACK, selected ? selectedColor : null);
+    }
+
+    private void drawPassenger(Graphics2D g2D) {
+        int x = nextInt();
+        int y = nextInt();
+        int size = nextInt();
+        ShapeType shapeType = nextObject();
+        Color color = nextObject();
+
+        passengerSprites.draw(g2D, shapeType, size, color, 0, x, y);
+    }
+
+    private void drawModeToggle(Graphics2D g2D) {
+        int x = nextInt();
+        int y = nextInt();
+        boolean isInBuildMode = nextBoolean();
+
+        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        RoundRectangle2D background = new RoundRectangle2D.Double(
+                x, y, ModeToggle.WIDTH, ModeToggle.HEIGHT, ModeToggle.HEIGHT, ModeToggle.HEIGHT
+        );
+        g2D.setColor(isInBuildMode ? ModeToggle.BUILD_COLOR : ModeToggle.PLAY_COLOR);
+        g2D.fill(background);
+
+        int circleSize = ModeToggle.HEIGHT - 2 * ModeToggle.PADDING;
+        int circleX = isInBuildMode ?
+                x + ModeToggle.WIDTH - circleSize - ModeToggle.PADDING :
+                x + ModeToggle.PADDING;
+        int circleY = y + ModeToggle.PADDING;
+
+        g2D.setColor(Color.WHITE);
+        g2D.fillOval(circleX, circleY, circleSize, circleSize);
+    }
+
+    private void drawLinePalette(Graphics2D g2D) {
+        int x = nextInt();
+        int y = nextInt();
+        int lineCount = nextInt();
+        int activeLine = nextInt();
+
+        g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int i = 0; i < lineCount; i++) {
+            Color color = nextObject();
+            int swatchX = x + i * (LinePalette.SWATCH_SIZE + LinePalette.SPACING);
+            g2D.setColor(color);
+            g2D.fillOval(swatchX, y, LinePalette.SWATCH_SIZE, LinePalette.SWATCH_SIZE);
+
+            // Ring around the active line
+            if (i == activeLine) {
+                int inset = -LinePalette.BORDER_THICKNESS;
+                g2D.setColor(Color.BLACK);
+                g2D.setStroke(LINE_PALETTE_STROKE);
+                g2D.drawOval(swatchX + inset, y + inset,
+                        LinePalette.SWATCH_SIZE - 2 * inset, LinePalette.SWATCH_SIZE - 2 * inset);
+            }
+        }
+    }
+
+    private int nextInt() {
+        return frame.getInt(intIndex++);
+    }
+
+    private boolean nextBoolean() {
+        return nextInt() != 0;
+    }
+
+    private double nextDouble() {
+        return frame.getDouble(doubleIndex++);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T nextObject() {
+        return (T) frame.getObject(objectIndex++);
+    }
+}
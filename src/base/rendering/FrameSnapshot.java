@@ -0,0 +1,145 @@
+package base.rendering;
+
+import java.util.Arrays;
+
+/**
+ * Compact, self-contained description of a single frame, written by the simulation thread and read by the
+ * {@link FrameRenderer}. A frame is a list of {@link DrawCommand}s in draw order; the arguments of all commands
+ * are stored in shared primitive arrays (and an object array for immutable values like colors), read back in
+ * the same order as they were written.
+ * <p>
+ * The arrays only grow and are reused from frame to frame, so writing a frame doesn't allocate once the
+ * arrays are large enough. Frames are handed between threads with a {@link base.util.TripleBuffer}.
+ */
+public class FrameSnapshot {
+    public enum DrawCommand {
+        GRID,
+        EXCLUSION_CIRCLE,
+        TRAIN_LINE_SEGMENT,
+        TRAIN,
+        STATION,
+        PASSENGER,
+        MODE_TOGGLE,
+        LINE_PALETTE;
+
+        private static final DrawCommand[] VALUES = values();
+    }
+
+    private byte[] commands = new byte[64];
+    private int[] ints = new int[256];
+    private double[] doubles = new double[256];
+    private Object[] objects = new Object[64];
+    private int commandCount, intCount, doubleCount, objectCount;
+    private final int[] layerEnds;
+    private FrameSnapshot staticLayers;
+
+    /**
+     * Creates a new, empty frame.
+     * @param maxZIndex The highest z index of the layers in this frame
+     */
+    public FrameSnapshot(int maxZIndex) {
+        this.layerEnds = new int[maxZIndex + 1];
+    }
+
+    /**
+     * Removes all commands, so the frame can be written again.
+     */
+    public void clear() {
+        Arrays.fill(objects, 0, objectCount, null);  // Don't keep references to objects of old frames
+        commandCount = 0;
+        intCount = 0;
+        doubleCount = 0;
+        objectCount = 0;
+        Arrays.fill(layerEnds, 0);
+        staticLayers = null;
+    }
+
+    /**
+     * Sets the frame containing the layers that rarely change and are drawn below all layers of this frame.
+     * The static frame must not be modified anymore, so the renderer can cache it as long as it stays the same.
+     */
+    public void setStaticLayers(FrameSnapshot staticLayers) {
+        this.staticLayers = staticLayers;
+    }
+
+    // Writing
+
+    public void addCommand(DrawCommand command) {
+        if (commandCount == commands.length) {
+            commands = Arrays.copyOf(commands, commandCount * 2);
+        }
+        commands[commandCount++] = (byte) command.ordinal();
+    }
+
+    public void putInt(int value) {
+        if (intCount == ints.length) {
+            ints = Arrays.copyOf(ints, intCount * 2);
+        }
+        ints[intCount++] = value;
+    }
+
+    public void putBoolean(boolean value) {
+        putInt(value ? 1 : 0);
+    }
+
+    public void putDouble(double value) {
+        if (doubleCount == doubles.length) {
+            doubles = Arrays.copyOf(doubles, doubleCount * 2);
+        }
+        doubles[doubleCount++] = value;
+    }
+
+    /**
+     * Adds an object argument. Only immutable objects may be added, as they are shared with the render thread.
+     */
+    public void putObject(Object value) {
+        if (objectCount == objects.length) {
+            objects = Arrays.copyOf(objects, objectCount * 2);
+        }
+        objects[objectCount++] = value;
+    }
+
+    /**
+     * Marks the end of the layer with the given z index. Must be called for every layer in ascending order.
+     */
+    public void endLayer(int z) {
+        layerEnds[z] = commandCount;
+    }
+
+    // Reading
+
+    public int getCommandCount() {
+        return commandCount;
+    }
+
+    public DrawCommand getCommand(int index) {
+        return DrawCommand.VALUES[commands[index]];
+    }
+
+    public int getInt(int index) {
+        return ints[index];
+    }
+
+    public double getDouble(int index) {
+        return doubles[index];
+    }
+
+    public Object getObject(int index) {
+        return objects[index];
+    }
+
+    /**
+     * Returns the index after the last command of the layer with the given z index.
+     */
+    public int getLayerEnd(int z) {
+        return layerEnds[z];
+    }
+
+    public int getMaxZIndex() {
+        return layerEnds.length - 1;
+    }
+
+    public FrameSnapshot getStaticLayers() {
+        return staticLayers;
+    }
+}
@@ -0,0 +1,106 @@
+package base.rendering;
+
+import base.gameObjects.shape.ShapeFactory;
+import base.gameObjects.shape.ShapeType;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-rasterized passenger sprites, so passengers are blitted with a single {@code drawImage} instead of being
+ * filled as vector shapes.
+ * <p>
+ * Every combination of shape type, size and color gets one image strip with a cell per rotation bucket, which is
+ * rasterized the first time it is used. Only a few combinations exist, so the strips are found by a linear scan.
+ * Not thread-safe, each {@link FrameRenderer} owns its own atlas.
+ */
+public class PassengerSpriteAtlas {
+    public static final int ROTATION_BUCKETS = 64;
+    private static final int CELL_PADDING = 2;
+
+    private record Strip(ShapeType shapeType, int size, int rgb, int cellSize, BufferedImage image) {}
+
+    private final List<Strip> strips;
+    private double scaleX = 1, scaleY = 1;   // Device scale the strips were rasterized for
+
+    public PassengerSpriteAtlas() {
+        this.strips = new ArrayList<>();
+    }
+
+    /**
+     * Draws a passenger sprite centered at the given position in the current user space of the graphics.
+     * @param rotation Rotation of the shape in radians, rounded to the nearest of the {@link #ROTATION_BUCKETS}
+     */
+    public void draw(Graphics2D g2D, ShapeType shapeType, int size, Color color, double rotation, int x, int y) {
+        Strip strip = getStrip(g2D, shapeType, size, color);
+
+        int bucket = (int) Math.round(rotation / (2 * Math.PI) * ROTATION_BUCKETS) % ROTATION_BUCKETS;
+        if (bucket < 0) {
+            bucket += ROTATION_BUCKETS;
+        }
+
+        int cellSize = strip.cellSize;
+        int cellPixelsX = (int) Math.ceil(cellSize * scaleX);
+        int cellPixelsY = (int) Math.ceil(cellSize * scaleY);
+        int dx = x - cellSize / 2;
+        int dy = y - cellSize / 2;
+        int sx = bucket * cellPixelsX;
+        g2D.drawImage(strip.image,
+                dx, dy, dx + cellSize, dy + cellSize,
+                sx, 0, sx + cellPixelsX, cellPixelsY,
+                null);
+    }
+
+    private Strip getStrip(Graphics2D g2D, ShapeType shapeType, int size, Color color) {
+        // Rasterize at the device resolution, so the sprites aren't blurry on scaled displays
+        AffineTransform deviceTransform = g2D.getDeviceConfiguration().getDefaultTransform();
+        if (deviceTransform.getScaleX() != scaleX || deviceTransform.getScaleY() != scaleY) {
+            scaleX = deviceTransform.getScaleX();
+            scaleY = deviceTransform.getScaleY();
+            strips.clear();
+        }
+
+        int rgb = color.getRGB();
+        for (int i = 0; i < strips.size(); i++) {
+            Strip strip = strips.get(i);
+            if (strip.shapeType == shapeType && strip.size == size && strip.rgb == rgb) {
+                return strip;
+            }
+        }
+
+        Strip strip = createStrip(g2D.getDeviceConfiguration(), shapeType, size, color);
+        strips.add(strip);
+        return strip;
+    }
+
+    private Strip createStrip(GraphicsConfiguration configuration, ShapeType shapeType, int size, Color color) {
+        // Large enough for the shape in any rotation, with the center on a whole pixel like the vector shapes
+        int cellSize = (int) Math.ceil(size * Math.sqrt(2)) + 2 * CELL_PADDING;
+        cellSize += cellSize % 2;
+        int cellPixelsX = (int) Math.ceil(cellSize * scaleX);
+        int cellPixelsY = (int) Math.ceil(cellSize * scaleY);
+
+        BufferedImage image = configuration.createCompatibleImage(
+                cellPixelsX * ROTATION_BUCKETS, cellPixelsY, Transparency.TRANSLUCENT);
+        Graphics2D g2D = image.createGraphics();
+        try {
+            g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            for (int bucket = 0; bucket < ROTATION_BUCKETS; bucket++) {
+                AffineTransform cellTransform = new AffineTransform();
+                cellTransform.translate(bucket * cellPixelsX, 0);
+                cellTransform.scale(scaleX, scaleY);
+                cellTransform.translate(cellSize / 2.0, cellSize / 2.0);
+                cellTransform.rotate(2 * Math.PI * bucket / ROTATION_BUCKETS);
+                g2D.setTransform(cellTransform);
+                ShapeFactory.getShape(shapeType).draw(g2D, 0, 0, size, color, 0, Color.BLACK, null);
+            }
+        } finally {
+            g2D.dispose();
+        }
+
+        return new Strip(shapeType, size, color.getRGB(), cellSize, image);
+    }
+}
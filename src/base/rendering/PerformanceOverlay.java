@@ -0,0 +1,105 @@
+package base.rendering;
+
+import base.main.World;
+import base.util.PerformanceMonitor;
+import base.util.PerformanceMonitor.UpdatePhase;
+import base.util.TimingHistogram;
+
+import java.awt.*;
+
+/**
+ * Heads-up display showing p50/p99/max timings of the simulation tick, its update phases, the rendered frames
+ * and each paint layer, as recorded by a {@link PerformanceMonitor}. Hidden by default.
+ */
+public class PerformanceOverlay {
+    private static final int MARGIN = 10;
+    private static final int PADDING = 8;
+    private static final int LINE_HEIGHT = 14;
+    private static final int WIDTH = 330;
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    private static final Color BACKGROUND_COLOR = new Color(0, 0, 0, 180);
+    private static final Color TEXT_COLOR = Color.WHITE;
+    private static final Color WARNING_COLOR = new Color(255, 120, 100);
+
+    private final PerformanceMonitor performanceMonitor;
+    private final String[] layerNames;
+    private volatile boolean visible = false;
+
+    public PerformanceOverlay(PerformanceMonitor performanceMonitor) {
+        this.performanceMonitor = performanceMonitor;
+
+        // Only named layers are shown
+        this.layerNames = new String[performanceMonitor.getMaxZIndex() + 1];
+        layerNames[World.GRID_Z_INDEX] = "static (cached)";   // Grid, exclusion circles and train lines
+        layerNames[World.STATION_SELECTOR_Z_INDEX] = "station selector";
+        layerNames[World.TRAIN_Z_INDEX] = "trains";
+        layerNames[World.STATION_Z_INDEX] = "stations";
+        layerNames[World.PASSENGER_Z_INDEX] = "passengers";
+        layerNames[World.UI_Z_INDEX] = "ui";
+    }
+
+    /**
+     * Shows or hides the overlay. All timings are reset when the overlay is shown, so it displays fresh values.
+     */
+    public void toggleVisible() {
+        if (!visible) {
+            performanceMonitor.reset();
+        }
+        visible = !visible;
+    }
+
+    public void draw(Graphics2D g2D) {
+        if (!visible) {
+            return;
+        }
+
+        int rows = 3 + UpdatePhase.values().length + 1;
+        for (String layerName : layerNames) {
+            if (layerName != null) {
+                rows++;
+            }
+        }
+        int x = World.WIDTH - WIDTH - MARGIN;
+        int y = MARGIN;
+
+        g2D.setColor(BACKGROUND_COLOR);
+        g2D.fillRect(x, y, WIDTH, rows * LINE_HEIGHT + 2 * PADDING);
+        g2D.setFont(FONT);
+
+        int textX = x + PADDING;
+        int textY = y + PADDING + LINE_HEIGHT - 3;
+
+        g2D.setColor(TEXT_COLOR);
+        g2D.drawString(String.format("%-20s %7s %7s %7s", "[ms]", "p50", "p99", "max"), textX, textY);
+        textY += LINE_HEIGHT;
+
+        drawRow(g2D, performanceMonitor.getTickHistogram(), "tick", textX, textY);
+        textY += LINE_HEIGHT;
+        for (UpdatePhase phase : UpdatePhase.values()) {
+            drawRow(g2D, performanceMonitor.getUpdatePhaseHistogram(phase), "  " + phase.getLabel(), textX, textY);
+            textY += LINE_HEIGHT;
+        }
+
+        drawRow(g2D, performanceMonitor.getFrameHistogram(), "frame", textX, textY);
+        textY += LINE_HEIGHT;
+        for (int z = 0; z < layerNames.length; z++) {
+            if (layerNames[z] != null) {
+                drawRow(g2D, performanceMonitor.getPaintLayerHistogram(z), "  " + layerNames[z], textX, textY);
+                textY += LINE_HEIGHT;
+            }
+        }
+
+        long droppedTicks = performanceMonitor.getDroppedTicks();
+        long droppedFrames = performanceMonitor.getDroppedFrames();
+        g2D.setColor(droppedTicks > 0 || droppedFrames > 0 ? WARNING_COLOR : TEXT_COLOR);
+        g2D.drawString(String.format("dropped ticks: %d  frames: %d", droppedTicks, droppedFrames), textX, textY);
+    }
+
+    private void drawRow(Graphics2D g2D, TimingHistogram histogram, String label, int x, int y) {
+        g2D.drawString(String.format("%-20s %7.3f %7.3f %7.3f",
+                label,
+                histogram.getPercentile(0.5) / 1e6,
+                histogram.getPercentile(0.99) / 1e6,
+                histogram.getMax() / 1e6), x, y);
+    }
+}
@@ -0,0 +1,109 @@
+package base.rendering;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * Orders {@link Drawable}s by their z index, lowest first.
+ * <p>
+ * Drawables are bucket-sorted into one layer per z index when they are added or removed, so writing a frame is a
+ * plain walk over the layers without any sorting or allocation. The z index of a drawable doesn't change.
+ * The order of drawables within the same layer is unspecified.
+ */
+public class RenderQueue {
+    private final ArrayList<ArrayList<Drawable>> layers;
+    private final IdentityHashMap<Drawable, Slot> slots;
+
+    /** Position of a drawable in the layers */
+    private static class Slot {
+        final int z;
+        int index;
+
+        Slot(int z, int index) {
+            this.z = z;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Creates a new render queue.
+     * @param maxZIndex The highest z index that can be used
+     */
+    public RenderQueue(int maxZIndex) {
+        this.layers = new ArrayList<>(maxZIndex + 1);
+        for (int z = 0; z <= maxZIndex; z++) {
+            layers.add(new ArrayList<>());
+        }
+        this.slots = new IdentityHashMap<>();
+    }
+
+    /**
+     * Adds a drawable to the layer with the given z index. Does nothing if the drawable was already added.
+     */
+    public void add(Drawable drawable, int z) {
+        if (slots.containsKey(drawable)) {
+            return;
+        }
+        ArrayList<Drawable> layer = getLayer(z);
+        slots.put(drawable, new Slot(z, layer.size()));
+        layer.add(drawable);
+    }
+
+    /**
+     * Removes a drawable from the queue in constant time. Does nothing if the drawable was not added.
+     */
+    public void remove(Drawable drawable) {
+        Slot slot = slots.remove(drawable);
+        if (slot != null) {
+            removeFromLayer(slot);
+        }
+    }
+
+    public boolean contains(Drawable drawable) {
+        return slots.containsKey(drawable);
+    }
+
+    public int getMaxZIndex() {
+        return layers.size() - 1;
+    }
+
+    /**
+     * Writes the draw commands of all drawables into the frame, from the lowest to the highest z index.
+     */
+    public void snapshot(FrameSnapshot frame) {
+        snapshot(frame, 0, getMaxZIndex());
+    }
+
+    /**
+     * Writes the draw commands of all drawables with a z index between {@code fromZ} and {@code toZ} (inclusive)
+     * into the frame, from the lowest to the highest z index.
+     */
+    public void snapshot(FrameSnapshot frame, int fromZ, int toZ) {
+        for (int z = fromZ; z <= toZ; z++) {
+            ArrayList<Drawable> layer = layers.get(z);
+            for (int i = 0; i < layer.size(); i++) {
+                layer.get(i).snapshot(frame);
+            }
+            frame.endLayer(z);
+        }
+    }
+
+    private ArrayList<Drawable> getLayer(int z) {
+        if (z < 0 || z >= layers.size()) {
+            throw new IllegalArgumentException("z index out of range: " + z);
+        }
+        return layers.get(z);
+    }
+
+    /**
+     * Removes the drawable at the given slot by moving the last drawable of the layer into its place.
+     */
+    private void removeFromLayer(Slot slot) {
+        ArrayList<Drawable> layer = layers.get(slot.z);
+        Drawable last = layer.removeLast();
+        if (slot.index < layer.size()) {
+            layer.set(slot.index, last);
+            slots.get(last).index = slot.index;
+        }
+    }
+}
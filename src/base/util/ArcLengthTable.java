@@ -0,0 +1,132 @@
+package base.util;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+
+/**
+ * Precompiled lookup table to find the point and direction at a given distance along a path.
+ * <p>
+ * The path is compiled once into pieces, which are straight lines or quadratic Bézier curves. For every piece the
+ * table stores its cumulative distance from the start of the path and its control points. A lookup is a binary
+ * search over the distances, followed by a linear interpolation on lines or an arc-length inversion on curves
+ * (see {@link PathUtils#quadraticParameterAtLength}), so positions are exact and consistent with the lengths
+ * from {@link PathUtils#calculatePathLength(Path2D)}. Lookups don't allocate. Tables are immutable.
+ */
+public class ArcLengthTable {
+    private static final int COORDINATES_PER_PIECE = 6;   // Start, control point (curves only) and end
+
+    private final double[] distances;     // Distance of the start of piece i; the last one is the path length
+    private final double[] coordinates;   // x0, y0, x1, y1, x2, y2 of each piece
+    private final boolean[] curves;
+    private final int pieceCount;
+
+    private ArcLengthTable(double[] distances, double[] coordinates, boolean[] curves, int pieceCount) {
+        this.distances = distances;
+        this.coordinates = coordinates;
+        this.curves = curves;
+        this.pieceCount = pieceCount;
+    }
+
+    /**
+     * Compiles the path into a new table. Only the first move-to is used, so the path must be connected.
+     */
+    public static ArcLengthTable of(Path2D path) {
+        int capacity = 4;
+        double[] distances = new double[capacity + 1];
+        double[] coordinates = new double[capacity * COORDINATES_PER_PIECE];
+        boolean[] curves = new boolean[capacity];
+        int count = 0;
+
+        double lastX = 0, lastY = 0;
+        double[] coords = new double[6];
+        for (PathIterator pi = path.getPathIterator(null); !pi.isDone(); pi.next()) {
+            int type = pi.currentSegment(coords);
+            if (type == PathIterator.SEG_MOVETO) {
+                if (count == 0) {
+                    lastX = coords[0];
+                    lastY = coords[1];
+                }
+                continue;
+            }
+            if (type != PathIterator.SEG_LINETO && type != PathIterator.SEG_QUADTO) {
+                continue;
+            }
+
+            if (count == capacity) {
+                capacity *= 2;
+                distances = Arrays.copyOf(distances, capacity + 1);
+                coordinates = Arrays.copyOf(coordinates, capacity * COORDINATES_PER_PIECE);
+                curves = Arrays.copyOf(curves, capacity);
+            }
+
+            boolean curve = type == PathIterator.SEG_QUADTO;
+            double endX = curve ? coords[2] : coords[0];
+            double endY = curve ? coords[3] : coords[1];
+            int offset = count * COORDINATES_PER_PIECE;
+            coordinates[offset] = lastX;
+            coordinates[offset + 1] = lastY;
+            coordinates[offset + 2] = curve ? coords[0] : lastX;
+            coordinates[offset + 3] = curve ? coords[1] : lastY;
+            coordinates[offset + 4] = endX;
+            coordinates[offset + 5] = endY;
+            curves[count] = curve;
+
+            double length = curve
+                    ? PathUtils.quadraticLength(lastX, lastY, coords[0], coords[1], endX, endY)
+                    : Math.hypot(endX - lastX, endY - lastY);
+            distances[count + 1] = distances[count] + length;
+            count++;
+
+            lastX = endX;
+            lastY = endY;
+        }
+
+        if (count == 0) {
+            // A path without pieces is a single point
+            coordinates[0] = coordinates[2] = coordinates[4] = lastX;
+            coordinates[1] = coordinates[3] = coordinates[5] = lastY;
+            count = 1;
+        }
+
+        return new ArcLengthTable(distances, coordinates, curves, count);
+    }
+
+    public double getLength() {
+        return distances[pieceCount];
+    }
+
+    /**
+     * Finds the point at the given distance from the start of the path, clamped to the path.
+     * @param result Receives the x coordinate, y coordinate and direction angle (in radians) at {@code [0..2]}
+     */
+    public void sample(double distance, double[] result) {
+        // Find the first piece ending at or after the distance
+        int low = 0, high = pieceCount - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (distances[middle + 1] < distance) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        int offset = low * COORDINATES_PER_PIECE;
+        double x0 = coordinates[offset], y0 = coordinates[offset + 1];
+        double x1 = coordinates[offset + 2], y1 = coordinates[offset + 3];
+        double x2 = coordinates[offset + 4], y2 = coordinates[offset + 5];
+        double pieceLength = distances[low + 1] - distances[low];
+        double pieceDistance = Math.max(0, Math.min(pieceLength, distance - distances[low]));
+
+        if (curves[low]) {
+            double t = PathUtils.quadraticParameterAtLength(pieceDistance, pieceLength, x0, y0, x1, y1, x2, y2);
+            PathUtils.quadraticPoint(t, x0, y0, x1, y1, x2, y2, result);
+        } else {
+            double ratio = pieceLength > 0 ? pieceDistance / pieceLength : 0;
+            result[0] = x0 + (x2 - x0) * ratio;
+            result[1] = y0 + (y2 - y0) * ratio;
+            result[2] = Math.atan2(y2 - y0, x2 - x0);
+        }
+    }
+}
@@ -5,7 +5,19 @@ import java.awt.geom.PathIterator;
 
 public class PathUtils {
     public static final double DEFAULT_PATH_TOLERANCE = 5.0;
-    public static final int DEFAULT_CURVE_STEPS = 10;
+
+    // 8-point Gauss–Legendre quadrature on [-1, 1], used to integrate the speed of quadratic Bézier curves
+    private static final double[] GAUSS_LEGENDRE_NODES = {
+            -0.9602898564975363, -0.7966664774136267, -0.5255324099163290, -0.1834346424956498,
+            0.1834346424956498, 0.5255324099163290, 0.7966664774136267, 0.9602898564975363
+    };
+    private static final double[] GAUSS_LEGENDRE_WEIGHTS = {
+            0.1012285362903763, 0.2223810344533745, 0.3137066458778873, 0.3626837833783620,
+            0.3626837833783620, 0.3137066458778873, 0.2223810344533745, 0.1012285362903763
+    };
+    private static final int PROJECTION_SAMPLES = 8;
+    private static final int MAX_NEWTON_ITERATIONS = 8;
+    private static final double NEWTON_TOLERANCE = 1e-9;
 
     public static class PathPosition {
         public final int segmentIndex;
@@ -63,14 +75,127 @@ public class PathUtils {
         return calculator.getLength();
     }
 
-    public static double[] calculateQuadraticPoint(double t, double x0, double y0,
-                                                   double x1, double y1,
-                                                   double x2, double y2) {
+    // Quadratic Bézier curves from (x0, y0) over the control point (x1, y1) to (x2, y2).
+    // All of these are exact up to floating point precision and don't allocate.
+
+    /**
+     * Calculates the point and direction of a quadratic Bézier curve at parameter t.
+     * @param result Receives the x coordinate, y coordinate and direction angle (in radians) at {@code [0..2]}
+     */
+    public static void quadraticPoint(double t, double x0, double y0, double x1, double y1,
+                                      double x2, double y2, double[] result) {
         double mt = 1 - t;
-        return new double[] {
-                mt * mt * x0 + 2 * mt * t * x1 + t * t * x2,
-                mt * mt * y0 + 2 * mt * t * y1 + t * t * y2
-        };
+        result[0] = mt * mt * x0 + 2 * mt * t * x1 + t * t * x2;
+        result[1] = mt * mt * y0 + 2 * mt * t * y1 + t * t * y2;
+
+        double dx = mt * (x1 - x0) + t * (x2 - x1);
+        double dy = mt * (y1 - y0) + t * (y2 - y1);
+        if (dx == 0 && dy == 0) {
+            // The control point coincides with an end point: the curve runs straight from start to end
+            dx = x2 - x0;
+            dy = y2 - y0;
+        }
+        result[2] = Math.atan2(dy, dx);
+    }
+
+    /**
+     * Calculates the arc length of a quadratic Bézier curve from parameter 0 to t with Gauss–Legendre quadrature,
+     * which is exact for the smooth, low-curvature bends of train lines.
+     */
+    public static double quadraticLength(double t, double x0, double y0, double x1, double y1,
+                                         double x2, double y2) {
+        // Derivative B'(u) = 2 * (a + u * b)
+        double ax = x1 - x0, ay = y1 - y0;
+        double bx = x2 - 2 * x1 + x0, by = y2 - 2 * y1 + y0;
+
+        double halfT = t / 2;
+        double length = 0;
+        for (int i = 0; i < GAUSS_LEGENDRE_NODES.length; i++) {
+            double u = halfT * (GAUSS_LEGENDRE_NODES[i] + 1);
+            length += GAUSS_LEGENDRE_WEIGHTS[i] * Math.hypot(ax + u * bx, ay + u * by);
+        }
+        return 2 * halfT * length;
+    }
+
+    public static double quadraticLength(double x0, double y0, double x1, double y1, double x2, double y2) {
+        return quadraticLength(1, x0, y0, x1, y1, x2, y2);
+    }
+
+    /**
+     * Finds the parameter t at which the arc length of a quadratic Bézier curve from its start equals the given
+     * length, using Newton's method safeguarded by bisection.
+     * @param totalLength Length of the whole curve, as returned by {@link #quadraticLength}
+     */
+    public static double quadraticParameterAtLength(double length, double totalLength, double x0, double y0,
+                                                    double x1, double y1, double x2, double y2) {
+        if (length <= 0 || totalLength <= 0) {
+            return 0;
+        }
+        if (length >= totalLength) {
+            return 1;
+        }
+
+        double low = 0, high = 1;
+        double t = length / totalLength;
+        for (int i = 0; i < MAX_NEWTON_ITERATIONS; i++) {
+            double error = quadraticLength(t, x0, y0, x1, y1, x2, y2) - length;
+            if (Math.abs(error) < NEWTON_TOLERANCE) {
+                break;
+            }
+            if (error > 0) {
+                high = t;
+            } else {
+                low = t;
+            }
+
+            double speed = 2 * Math.hypot((1 - t) * (x1 - x0) + t * (x2 - x1), (1 - t) * (y1 - y0) + t * (y2 - y1));
+            double next = speed > 0 ? t - error / speed : Double.NaN;
+            t = next > low && next < high ? next : (low + high) / 2;
+        }
+        return t;
+    }
+
+    /**
+     * Finds the parameter t of the point on a quadratic Bézier curve closest to (px, py).
+     */
+    public static double quadraticProject(double px, double py, double x0, double y0, double x1, double y1,
+                                          double x2, double y2) {
+        double ax = x1 - x0, ay = y1 - y0;
+        double bx = x2 - 2 * x1 + x0, by = y2 - 2 * y1 + y0;
+
+        // Coarse search for the closest sample, then refine with Newton's method on d/dt |B(t) - P|^2 = 0
+        double bestT = 0;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = 0; i <= PROJECTION_SAMPLES; i++) {
+            double t = i / (double) PROJECTION_SAMPLES;
+            double dx = x0 + t * (2 * ax + t * bx) - px;
+            double dy = y0 + t * (2 * ay + t * by) - py;
+            double distance = dx * dx + dy * dy;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestT = t;
+            }
+        }
+
+        double t = bestT;
+        for (int i = 0; i < MAX_NEWTON_ITERATIONS; i++) {
+            double dx = x0 + t * (2 * ax + t * bx) - px;     // B(t) - P
+            double dy = y0 + t * (2 * ay + t * by) - py;
+            double tx = 2 * (ax + t * bx);                     // B'(t)
+            double ty = 2 * (ay + t * by);
+            double f = dx * tx + dy * ty;
+            double df = tx * tx + ty * ty + 2 * (dx * bx + dy * by);
+            if (df <= 0) {
+                break;
+            }
+            double next = Math.max(0, Math.min(1, t - f / df));
+            if (Math.abs(next - t) < NEWTON_TOLERANCE) {
+                t = next;
+                break;
+            }
+            t = next;
+        }
+        return t;
     }
 
     public static boolean isPointNearSegment(int px, int py, double x1, double y1, double x2, double y2) {
@@ -119,29 +244,16 @@ public class PathUtils {
         }
 
         void handleQuadTo(double[] coords, int targetX, int targetY) {
-            double lastQuadX = lastX;
-            double lastQuadY = lastY;
-
-            for (int i = 1; i <= DEFAULT_CURVE_STEPS; i++) {
-                double t = i / (double)DEFAULT_CURVE_STEPS;
-                double[] point = calculateQuadraticPoint(t, lastX, lastY,
-                        coords[0], coords[1],
-                        coords[2], coords[3]);
-                double stepLength = Math.hypot(point[0] - lastQuadX, point[1] - lastQuadY);
-
-                if (isPointNearSegment(targetX, targetY, lastQuadX, lastQuadY,
-                        point[0], point[1])) {
-                    double ratio = ((targetX - lastQuadX) * (point[0] - lastQuadX) +
-                            (targetY - lastQuadY) * (point[1] - lastQuadY)) /
-                            (stepLength * stepLength);
-                    result = totalDistance + (stepLength * ratio);
-                }
-
-                totalDistance += stepLength;
-                lastQuadX = point[0];
-                lastQuadY = point[1];
+            // Project the target onto the curve and measure the arc length up to the projected point
+            double t = quadraticProject(targetX, targetY, lastX, lastY, coords[0], coords[1], coords[2], coords[3]);
+            double mt = 1 - t;
+            double closestX = mt * mt * lastX + 2 * mt * t * coords[0] + t * t * coords[2];
+            double closestY = mt * mt * lastY + 2 * mt * t * coords[1] + t * t * coords[3];
+            if (Math.hypot(targetX - closestX, targetY - closestY) < DEFAULT_PATH_TOLERANCE) {
+                result = totalDistance + quadraticLength(t, lastX, lastY, coords[0], coords[1], coords[2], coords[3]);
             }
 
+            totalDistance += quadraticLength(lastX, lastY, coords[0], coords[1], coords[2], coords[3]);
             lastX = coords[2];
             lastY = coords[3];
         }
@@ -171,19 +283,7 @@ public class PathUtils {
         }
 
         private void processQuadTo(double[] coords) {
-            double lastQuadX = lastX;
-            double lastQuadY = lastY;
-
-            for (int i = 1; i <= DEFAULT_CURVE_STEPS; i++) {
-                double t = i / (double)DEFAULT_CURVE_STEPS;
-                double[] point = calculateQuadraticPoint(t, lastX, lastY,
-                        coords[0], coords[1],
-                        coords[2], coords[3]);
-                length += Math.hypot(point[0] - lastQuadX, point[1] - lastQuadY);
-                lastQuadX = point[0];
-                lastQuadY = point[1];
-            }
-
+            length += quadraticLength(lastX, lastY, coords[0], coords[1], coords[2], coords[3]);
             lastX = coords[2];
             lastY = coords[3];
         }
@@ -0,0 +1,148 @@
+package base.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects nanosecond timings of the simulation tick, its update phases, rendered frames and the individual
+ * paint layers, as well as the number of ticks and frames the game loop had to drop.
+ * <p>
+ * Timings are measured as laps: a phase ends where the next one starts, so instrumenting a method costs one
+ * {@link System#nanoTime()} call per phase:
+ * <pre>
+ * long time = System.nanoTime();
+ * doFirstPhase();
+ * time = monitor.lap(UpdatePhase.FIRST, time);
+ * doSecondPhase();
+ * time = monitor.lap(UpdatePhase.SECOND, time);
+ * </pre>
+ */
+public class PerformanceMonitor {
+    public enum UpdatePhase {
+        MODE_TOGGLE("modeToggle"),
+        GRID("grid"),
+        TRAINS("trains"),
+        PASSENGER_EXCHANGE("exchange"),
+        STATIONS("stations"),
+        TRAIN_LINES("train lines");
+
+        private final String label;
+
+        UpdatePhase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final TimingHistogram tickHistogram;
+    private final TimingHistogram frameHistogram;
+    private final TimingHistogram[] updatePhaseHistograms;
+    private final TimingHistogram[] paintLayerHistograms;
+    private final LongAdder droppedTicks;
+    private final LongAdder droppedFrames;
+
+    /**
+     * Creates a new performance monitor.
+     * @param maxZIndex The highest z index of the paint layers
+     */
+    public PerformanceMonitor(int maxZIndex) {
+        this.tickHistogram = new TimingHistogram("tick");
+        this.frameHistogram = new TimingHistogram("frame");
+
+        UpdatePhase[] phases = UpdatePhase.values();
+        this.updatePhaseHistograms = new TimingHistogram[phases.length];
+        for (UpdatePhase phase : phases) {
+            updatePhaseHistograms[phase.ordinal()] = new TimingHistogram(phase.getLabel());
+        }
+
+        this.paintLayerHistograms = new TimingHistogram[maxZIndex + 1];
+        for (int z = 0; z <= maxZIndex; z++) {
+            paintLayerHistograms[z] = new TimingHistogram("layer " + z);
+        }
+
+        this.droppedTicks = new LongAdder();
+        this.droppedFrames = new LongAdder();
+    }
+
+    /**
+     * Records the time since {@code startTime} for an update phase.
+     * @return The current time, to be used as start time of the next phase
+     */
+    public long lap(UpdatePhase phase, long startTime) {
+        long now = System.nanoTime();
+        updatePhaseHistograms[phase.ordinal()].record(now - startTime);
+        return now;
+    }
+
+    /**
+     * Records the time since {@code startTime} for a paint layer.
+     * @return The current time, to be used as start time of the next layer
+     */
+    public long lapPaintLayer(int z, long startTime) {
+        long now = System.nanoTime();
+        paintLayerHistograms[z].record(now - startTime);
+        return now;
+    }
+
+    public void recordTick(long nanos) {
+        tickHistogram.record(nanos);
+    }
+
+    public void recordFrame(long nanos) {
+        frameHistogram.record(nanos);
+    }
+
+    public void addDroppedTicks(long ticks) {
+        droppedTicks.add(ticks);
+    }
+
+    public void addDroppedFrames(long frames) {
+        droppedFrames.add(frames);
+    }
+
+    public TimingHistogram getTickHistogram() {
+        return tickHistogram;
+    }
+
+    public TimingHistogram getFrameHistogram() {
+        return frameHistogram;
+    }
+
+    public TimingHistogram getUpdatePhaseHistogram(UpdatePhase phase) {
+        return updatePhaseHistograms[phase.ordinal()];
+    }
+
+    public TimingHistogram getPaintLayerHistogram(int z) {
+        return paintLayerHistograms[z];
+    }
+
+    public int getMaxZIndex() {
+        return paintLayerHistograms.length - 1;
+    }
+
+    public long getDroppedTicks() {
+        return droppedTicks.sum();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.sum();
+    }
+
+    /**
+     * Clears all recorded timings and counters.
+     */
+    public void reset() {
+        tickHistogram.reset();
+        frameHistogram.reset();
+        for (TimingHistogram histogram : updatePhaseHistograms) {
+            histogram.reset();
+        }
+        for (TimingHistogram histogram : paintLayerHistograms) {
+            histogram.reset();
+        }
+        droppedTicks.reset();
+        droppedFrames.reset();
+    }
+}
@@ -0,0 +1,71 @@
+package base.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the phases of a simulation tick on a {@link ForkJoinPool}. A phase processes a range of independent items
+ * (e.g. all trains), which is split into chunks that are processed in parallel. The call returns when the whole
+ * range is done, so phases never overlap.
+ * <p>
+ * The results don't depend on the number of threads as long as the items of a phase only write their own state:
+ * how the range is split only decides which thread processes an item, not what it computes.
+ */
+public class PhaseExecutor {
+
+    /**
+     * Processes the items {@code [from, to)} of a phase.
+     */
+    @FunctionalInterface
+    public interface RangeTask {
+        void run(int from, int to);
+    }
+
+    private final ForkJoinPool pool;   // null if everything runs on the calling thread
+
+    /**
+     * Creates a new executor.
+     * @param parallelism Number of threads; 1 runs all phases on the calling thread
+     */
+    public PhaseExecutor(int parallelism) {
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Processes the items {@code [0, count)}, in chunks of at least {@code grain} items.
+     * Small ranges are processed on the calling thread, where forking would cost more than it saves.
+     */
+    public void forRange(int count, int grain, RangeTask task) {
+        if (pool == null || count <= grain) {
+            task.run(0, count);
+        } else {
+            pool.invoke(new RangeAction(0, count, grain, task));
+        }
+    }
+
+    public int getParallelism() {
+        return pool != null ? pool.getParallelism() : 1;
+    }
+
+    private static class RangeAction extends RecursiveAction {
+        private final int from, to, grain;
+        private final RangeTask task;
+
+        RangeAction(int from, int to, int grain, RangeTask task) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                task.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeAction(from, middle, grain, task), new RangeAction(middle, to, grain, task));
+        }
+    }
+}
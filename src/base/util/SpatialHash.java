@@ -0,0 +1,104 @@
+package base.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Uniform grid that indexes objects by their axis-aligned bounding boxes, so the objects near a point can be
+ * found without scanning all objects.
+ * <p>
+ * An object is added to every cell its bounding box overlaps. A point query therefore only has to look at a
+ * single cell, and returns all objects whose bounding box might contain the point; the caller does the exact
+ * test. Objects are added, moved and removed incrementally.
+ *
+ * @param <T> Type of the indexed objects, compared by identity
+ */
+public class SpatialHash<T> {
+    private final int cellSize;
+    private final HashMap<Long, ArrayList<T>> cells;
+    private final IdentityHashMap<T, int[]> cellRanges;   // minCellX, minCellY, maxCellX, maxCellY of each object
+
+    public SpatialHash(int cellSize) {
+        this.cellSize = cellSize;
+        this.cells = new HashMap<>();
+        this.cellRanges = new IdentityHashMap<>();
+    }
+
+    /**
+     * Adds an object with the given bounding box, or moves it if it was already added.
+     */
+    public void put(T object, double minX, double minY, double maxX, double maxY) {
+        int minCellX = toCell(minX);
+        int minCellY = toCell(minY);
+        int maxCellX = toCell(maxX);
+        int maxCellY = toCell(maxY);
+
+        int[] range = cellRanges.get(object);
+        if (range != null) {
+            if (range[0] == minCellX && range[1] == minCellY && range[2] == maxCellX && range[3] == maxCellY) {
+                return;   // Still in the same cells
+            }
+            remove(object);
+        }
+
+        cellRanges.put(object, new int[] {minCellX, minCellY, maxCellX, maxCellY});
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                cells.computeIfAbsent(key(cellX, cellY), key -> new ArrayList<>(4)).add(object);
+            }
+        }
+    }
+
+    public void remove(T object) {
+        int[] range = cellRanges.remove(object);
+        if (range == null) {
+            return;
+        }
+
+        for (int cellX = range[0]; cellX <= range[2]; cellX++) {
+            for (int cellY = range[1]; cellY <= range[3]; cellY++) {
+                Long key = key(cellX, cellY);
+                ArrayList<T> cell = cells.get(key);
+                for (int i = 0; i < cell.size(); i++) {
+                    if (cell.get(i) == object) {
+                        // Order within a cell doesn't matter, so swap with the last object for O(1) removal
+                        cell.set(i, cell.getLast());
+                        cell.removeLast();
+                        break;
+                    }
+                }
+                if (cell.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns all objects whose bounding box overlaps the cell containing the point. The returned list must not
+     * be modified and is only valid until the index is changed.
+     */
+    public List<T> getCandidates(double x, double y) {
+        ArrayList<T> cell = cells.get(key(toCell(x), toCell(y)));
+        return cell != null ? Collections.unmodifiableList(cell) : Collections.emptyList();
+    }
+
+    public boolean contains(T object) {
+        return cellRanges.containsKey(object);
+    }
+
+    public int size() {
+        return cellRanges.size();
+    }
+
+    private int toCell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+}
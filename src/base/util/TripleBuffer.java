@@ -0,0 +1,57 @@
+package base.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free triple buffer to hand values from one producer thread to one consumer thread.
+ * <p>
+ * The producer always owns a back buffer it can write to and {@link #publish()}es it with a single atomic swap.
+ * The consumer always owns a front buffer and swaps in the latest published buffer with {@link #acquire()}.
+ * Neither side ever waits for the other, and a buffer is never written while it is being read.
+ *
+ * @param <T> Type of the buffered values, which are reused and never reallocated
+ */
+public class TripleBuffer<T> {
+    private static final int INDEX_MASK = 0b11;
+    private static final int FRESH = 0b100;      // Set if the middle buffer was published but not acquired yet
+
+    private final Object[] buffers;
+    private final AtomicInteger middle;          // Index of the middle buffer, combined with the FRESH flag
+    private int back;                            // Owned by the producer
+    private int front;                           // Owned by the consumer
+
+    public TripleBuffer(Supplier<T> factory) {
+        this.buffers = new Object[] {factory.get(), factory.get(), factory.get()};
+        this.back = 0;
+        this.middle = new AtomicInteger(1);
+        this.front = 2;
+    }
+
+    /**
+     * Returns the buffer the producer may write to. Only to be called by the producer.
+     */
+    @SuppressWarnings("unchecked")
+    public T getBackBuffer() {
+        return (T) buffers[back];
+    }
+
+    /**
+     * Publishes the back buffer and hands the producer a new one. Only to be called by the producer.
+     */
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Returns the latest published buffer, or the previously acquired one if nothing new was published.
+     * The returned buffer stays valid until the next call. Only to be called by the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return (T) buffers[front];
+    }
+}